@@ -0,0 +1,49 @@
+#!/usr/bin/env bash
+#
+# Build and run the JMH benchmarks outside of Eclipse.
+#
+#   ECLIPSE_HOME=/path/to/eclipse ./run-benchmarks.sh [jmh options, e.g. DescriptorBenchmark -prof gc]
+#
+# Requires:
+#   - the framework compiled into ../org.alfine.refactoring.framework/bin (Eclipse build),
+#   - an Eclipse installation (or target platform) providing JDT core and its
+#     dependencies in $ECLIPSE_HOME/plugins,
+#   - JMH jars in lib/ (run `./run-benchmarks.sh --fetch' to download them from Maven Central).
+
+set -euo pipefail
+
+HERE="$(cd "$(dirname "$0")" && pwd)"
+FRAMEWORK="$HERE/../org.alfine.refactoring.framework"
+MAVEN="https://repo1.maven.org/maven2"
+JMH_VERSION=1.37
+
+LIBS=(
+	"org/openjdk/jmh/jmh-core/$JMH_VERSION/jmh-core-$JMH_VERSION.jar"
+	"org/openjdk/jmh/jmh-generator-annprocess/$JMH_VERSION/jmh-generator-annprocess-$JMH_VERSION.jar"
+	"net/sf/jopt-simple/jopt-simple/5.0.4/jopt-simple-5.0.4.jar"
+	"org/apache/commons/commons-math3/3.6.1/commons-math3-3.6.1.jar"
+)
+
+if [ "${1:-}" == "--fetch" ]; then
+	mkdir -p "$HERE/lib"
+	for lib in "${LIBS[@]}"; do
+		curl -fsSL -o "$HERE/lib/$(basename "$lib")" "$MAVEN/$lib"
+	done
+	exit 0
+fi
+
+if [ -z "${ECLIPSE_HOME:-}" ]; then
+	echo "Please set ECLIPSE_HOME." >&2
+	exit 1
+fi
+
+CP="$FRAMEWORK/bin"
+for jar in "$FRAMEWORK"/lib/*.jar "$HERE"/lib/*.jar "$ECLIPSE_HOME"/plugins/*.jar; do
+	CP="$CP:$jar"
+done
+
+rm -rf "$HERE/bin"
+mkdir -p "$HERE/bin"
+javac -d "$HERE/bin" -cp "$CP" $(find "$HERE/src" -name '*.java')
+
+java -cp "$HERE/bin:$CP" org.openjdk.jmh.Main -rf json -rff "$HERE/jmh-result.json" "$@"
@@ -0,0 +1,72 @@
+package org.alfine.refactoring.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.alfine.refactoring.utils.ASTHelper;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Signature and declaration context computation over a synthetic AST. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ASTHelperBenchmark {
+
+	private List<MethodDeclaration> methods;
+	private List<ASTNode>           names; /* Nodes nested in method bodies. */
+
+	@Setup
+	public void setup() {
+		CompilationUnit cu = Synthetic.parse("Hot", Synthetic.source("Hot", 50));
+
+		this.methods = new ArrayList<>();
+		this.names   = new ArrayList<>();
+
+		cu.accept(new ASTVisitor() {
+			@Override
+			public boolean visit(MethodDeclaration node) {
+				methods.add(node);
+				return true;
+			}
+
+			@Override
+			public boolean visit(SimpleName node) {
+				names.add(node);
+				return true;
+			}
+		});
+	}
+
+	@Benchmark
+	public void getMethodSignature(Blackhole bh) {
+		for (MethodDeclaration method : this.methods) {
+			bh.consume(ASTHelper.getMethodSignature(method));
+		}
+	}
+
+	@Benchmark
+	public void getDeclarationContext(Blackhole bh) {
+		for (ASTNode node : this.names) {
+			bh.consume(ASTHelper.getDeclarationContext(node));
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package org.alfine.refactoring.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.alfine.refactoring.suppliers.Cache;
+import org.alfine.refactoring.suppliers.ExtractMethodDescriptor;
+import org.alfine.refactoring.suppliers.RefactoringOpportunityContext;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Writing (distinct) opportunities into a cache folder, in both formats. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheBenchmark {
+
+	@Param({"text", "segment"})
+	public String format;
+
+	@Param({"100"})
+	public int contexts;
+
+	private Path                            location;
+	private Cache                           cache;
+	private RefactoringOpportunityContext[] context;
+	private long                            counter;
+
+	@Setup(Level.Iteration)
+	public void setup() throws IOException {
+		this.location = Files.createTempDirectory("cache-benchmark");
+		this.cache    = new Cache(this.location, this.format);
+		this.context  = new RefactoringOpportunityContext[contexts];
+		for (int i = 0; i < contexts; ++i) {
+			Path path = Paths.get(Synthetic.PACKAGE.replace('.', '/'), "C" + i, "m" + i);
+			this.context[i] = new RefactoringOpportunityContext() {
+				@Override
+				public Path getContextPath() {
+					return path;
+				}
+			};
+		}
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDown() throws IOException {
+		this.cache.close();
+		FileUtils.deleteDirectory(this.location.toFile());
+	}
+
+	@Benchmark
+	public void write() {
+		int i = (int)(this.counter++);
+		this.cache.write(
+			this.context[Math.floorMod(i, contexts)],
+			new ExtractMethodDescriptor(DescriptorBenchmark.arguments(i), Collections.emptyMap()));
+	}
+}
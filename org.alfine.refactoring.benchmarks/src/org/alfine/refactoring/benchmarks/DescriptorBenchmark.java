@@ -0,0 +1,91 @@
+package org.alfine.refactoring.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.alfine.refactoring.suppliers.ExtractMethodDescriptor;
+import org.alfine.refactoring.suppliers.RefactoringDescriptor;
+import org.alfine.refactoring.suppliers.RefactoringDescriptorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Descriptor serialization, parsing and ordering. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DescriptorBenchmark {
+
+	@Param({"1000"})
+	public int size;
+
+	private List<Map<String, String>>   arguments;
+	private List<String>                lines;
+	private List<RefactoringDescriptor> descriptors;
+
+	/** Return arguments similar to those of an extract method opportunity. */
+	static Map<String, String> arguments(int i) {
+		Map<String, String> args = new HashMap<>();
+		args.put("input"     , Synthetic.handle("C" + (i / 10)));
+		args.put("element"   , Synthetic.handle("C" + (i / 10)));
+		args.put("selection" , (100 + 37 * i) + " " + (20 + i % 50));
+		args.put("name"      , "extracted" + i);
+		args.put("comments"  , "false");
+		args.put("replace"   , "false");
+		args.put("visibility", "2");
+		return args;
+	}
+
+	@Setup
+	public void setup() {
+		this.arguments   = new ArrayList<>();
+		this.lines       = new ArrayList<>();
+		this.descriptors = new ArrayList<>();
+		for (int i = 0; i < size; ++i) {
+			Map<String, String>   args       = arguments(i);
+			RefactoringDescriptor descriptor = new ExtractMethodDescriptor(args, Collections.emptyMap());
+			this.arguments.add(args);
+			this.lines.add(descriptor.getCacheLine());
+			this.descriptors.add(descriptor);
+		}
+		Collections.shuffle(this.descriptors);
+	}
+
+	/** Serialize freshly created descriptors (includes construction). */
+	@Benchmark
+	public void getCacheLine(Blackhole bh) {
+		for (Map<String, String> args : this.arguments) {
+			bh.consume(new ExtractMethodDescriptor(args, Collections.emptyMap()).getCacheLine());
+		}
+	}
+
+	@Benchmark
+	public void factoryGet(Blackhole bh) {
+		for (String line : this.lines) {
+			bh.consume(RefactoringDescriptorFactory.get(line));
+		}
+	}
+
+	@Benchmark
+	public List<RefactoringDescriptor> sort() {
+		List<RefactoringDescriptor> copy = new ArrayList<>(this.descriptors);
+		Collections.sort(copy);
+		return copy;
+	}
+}
@@ -0,0 +1,69 @@
+package org.alfine.refactoring.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.alfine.refactoring.suppliers.HotMethodVisitor;
+import org.alfine.refactoring.suppliers.MethodSet;
+import org.alfine.refactoring.suppliers.OpportunityBuffer;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Opportunity discovery over synthetic ASTs (parsing excluded). */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HotMethodVisitorBenchmark {
+
+	@Param({"20"})
+	public int units;
+
+	@Param({"20"})
+	public int methodsPerUnit;
+
+	private List<String>          handles;
+	private List<CompilationUnit> asts;
+	private MethodSet             methods;
+
+	@Setup
+	public void setup() throws IOException {
+		List<String> signatures = new ArrayList<>();
+
+		this.handles = new ArrayList<>();
+		this.asts    = new ArrayList<>();
+
+		for (int i = 0; i < units; ++i) {
+			String name = "Hot" + i;
+			this.handles.add(Synthetic.handle(name));
+			this.asts.add(Synthetic.parse(name, Synthetic.source(name, methodsPerUnit)));
+			signatures.addAll(Synthetic.signatures(name, methodsPerUnit));
+		}
+		this.methods = new MethodSet(Synthetic.methodsFile(signatures));
+	}
+
+	@Benchmark
+	public int visit() {
+		int total = 0;
+		for (int i = 0; i < units; ++i) {
+			OpportunityBuffer buffer = new OpportunityBuffer();
+			this.asts.get(i).accept(new HotMethodVisitor(buffer, this.handles.get(i), this.asts.get(i), this.methods));
+			total += buffer.size();
+		}
+		return total;
+	}
+}
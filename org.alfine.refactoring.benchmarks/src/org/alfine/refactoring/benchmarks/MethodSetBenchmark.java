@@ -0,0 +1,86 @@
+package org.alfine.refactoring.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.alfine.refactoring.suppliers.MethodSet;
+import org.alfine.refactoring.suppliers.MethodSignature;
+import org.alfine.refactoring.utils.ASTHelper;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Parsing of methods.config entries and lookup of method declarations. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MethodSetBenchmark {
+
+	@Param({"1000"})
+	public int size;
+
+	private List<String>            signatures;
+	private MethodSet               methods;
+	private List<MethodDeclaration> declarations;
+
+	@Setup
+	public void setup() throws IOException {
+		this.signatures = new ArrayList<>();
+		for (int i = 0; this.signatures.size() < size; ++i) {
+			this.signatures.addAll(Synthetic.signatures("C" + i, 9));
+		}
+		this.methods = new MethodSet(Synthetic.methodsFile(this.signatures));
+
+		this.declarations = new ArrayList<>();
+		Synthetic.parse("C0", Synthetic.source("C0", 9)).accept(new ASTVisitor() {
+			@Override
+			public boolean visit(MethodDeclaration node) {
+				declarations.add(node);
+				return true;
+			}
+		});
+	}
+
+	/** Lookup by signature string (as built for every declaration before the trie). */
+	@Benchmark
+	public int lookupBySignature() {
+		int hot = 0;
+		for (MethodDeclaration md : this.declarations) {
+			hot += this.methods.hasMethod(ASTHelper.getMethodSignature(md)) ? 1 : 0;
+		}
+		return hot;
+	}
+
+	/** Lookup by binding in the name trie. */
+	@Benchmark
+	public int lookupByBinding() {
+		int hot = 0;
+		for (MethodDeclaration md : this.declarations) {
+			hot += this.methods.hasMethod(md) ? 1 : 0;
+		}
+		return hot;
+	}
+
+	@Benchmark
+	public void parseMethod(Blackhole bh) {
+		for (String s : this.signatures) {
+			bh.consume(MethodSignature.parse(s));
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package org.alfine.refactoring.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+/** Synthetic inputs shared by the benchmarks.
+ *
+ *  Sources are generated so that every kind of opportunity the visitor looks
+ *  for is present (constants, locals, loops, calls, nested types), and parsed
+ *  without a Java model using a standalone parser environment. */
+public final class Synthetic {
+
+	public static final String PACKAGE = "bench.synthetic";
+
+	private Synthetic() {} // Static class.
+
+	/** Return source of class `name' with `methods' methods. */
+	public static String source(String name, int methods) {
+		StringBuilder s = new StringBuilder();
+		s.append("package ").append(PACKAGE).append(";\n\n");
+		s.append("import java.util.List;\n\n");
+		s.append("public class ").append(name).append("<T> {\n");
+		s.append("\tprivate static final int LIMIT = 128;\n");
+		s.append("\tprivate int count;\n\n");
+		for (int i = 0; i < methods; ++i) {
+			s.append("\tpublic int m").append(i).append("(int a, String b, List<T> c) {\n");
+			s.append("\t\tint sum = a + LIMIT;\n");
+			s.append("\t\tfor (int k = 0; k < c.size(); ++k) {\n");
+			s.append("\t\t\tif (k % 2 == 0) {\n");
+			s.append("\t\t\t\tsum += helper(k, b.length());\n");
+			s.append("\t\t\t} else {\n");
+			s.append("\t\t\t\tsum -= 3 * k;\n");
+			s.append("\t\t\t}\n");
+			s.append("\t\t}\n");
+			s.append("\t\tString tmp = b + \"-\" + sum;\n");
+			s.append("\t\tthis.count += tmp.length();\n");
+			s.append("\t\treturn sum;\n");
+			s.append("\t}\n\n");
+		}
+		s.append("\tprivate int helper(int x, int y) {\n");
+		s.append("\t\treturn x * y + LIMIT;\n");
+		s.append("\t}\n\n");
+		s.append("\tstatic class Inner {\n");
+		s.append("\t\tint value(int v) { return v + 1; }\n");
+		s.append("\t}\n");
+		s.append("}\n");
+		return s.toString();
+	}
+
+	/** Return signatures (methods.config format) of the generated methods of class `name'. */
+	public static List<String> signatures(String name, int methods) {
+		List<String> result = new ArrayList<>();
+		for (int i = 0; i < methods; ++i) {
+			result.add(PACKAGE + "." + name + ".m" + i + "(int, String, List<T>)");
+		}
+		result.add(PACKAGE + "." + name + ".helper(int, int)");
+		return result;
+	}
+
+	/** Return handle identifier of the generated unit (only used as a descriptor argument). */
+	public static String handle(String name) {
+		return "=bench/src<" + PACKAGE + "{" + name + ".java";
+	}
+
+	/** Parse `source' with bindings resolved against the running JRE. */
+	public static CompilationUnit parse(String name, String source) {
+		ASTParser parser = ASTParser.newParser(AST.JLS8);
+		Map<String, String> options = JavaCore.getOptions();
+		JavaCore.setComplianceOptions(JavaCore.VERSION_1_8, options);
+		parser.setCompilerOptions(options);
+		parser.setKind(ASTParser.K_COMPILATION_UNIT);
+		parser.setResolveBindings(true);
+		parser.setBindingsRecovery(true);
+		parser.setEnvironment(new String[0], new String[0], null, true);
+		parser.setUnitName("/bench/src/" + PACKAGE.replace('.', '/') + "/" + name + ".java");
+		parser.setSource(source.toCharArray());
+		return (CompilationUnit)parser.createAST(null);
+	}
+
+	/** Write `lines' to a temporary methods.config file. */
+	public static Path methodsFile(List<String> lines) throws IOException {
+		Path file = Files.createTempFile("methods", ".config");
+		Files.write(file, lines);
+		file.toFile().deleteOnExit();
+		return file;
+	}
+}
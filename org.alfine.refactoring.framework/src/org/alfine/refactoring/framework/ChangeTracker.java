@@ -0,0 +1,94 @@
+package org.alfine.refactoring.framework;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+
+/** Records files added, removed or modified in the workspace (via resource deltas).
+ *
+ *  Used to export only what a refactoring changed. Files are recorded by
+ *  absolute file system location; whether a recorded file was removed is
+ *  decided by checking if it still exists when the changes are consumed. */
+public class ChangeTracker implements IResourceChangeListener {
+
+	private static final int CONTENT_FLAGS =
+		IResourceDelta.CONTENT | IResourceDelta.REPLACED | IResourceDelta.MOVED_FROM | IResourceDelta.MOVED_TO;
+
+	private final Set<Path> files = new HashSet<>();
+	private       boolean   active;
+
+	/** Start listening for resource changes. */
+	public synchronized void start() {
+		if (!this.active) {
+			ResourcesPlugin.getWorkspace().addResourceChangeListener(this, IResourceChangeEvent.POST_CHANGE);
+			this.active = true;
+		}
+	}
+
+	/** Stop listening for resource changes. */
+	public synchronized void stop() {
+		if (this.active) {
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(this);
+			this.active = false;
+		}
+	}
+
+	public synchronized boolean isActive() {
+		return this.active;
+	}
+
+	/** Forget recorded changes (e.g., before applying the next refactoring). */
+	public synchronized void clear() {
+		this.files.clear();
+	}
+
+	/** Return a snapshot of the recorded files. */
+	public synchronized Set<Path> getFiles() {
+		return new HashSet<>(this.files);
+	}
+
+	@Override
+	public void resourceChanged(IResourceChangeEvent event) {
+		IResourceDelta delta = event.getDelta();
+		if (delta == null) {
+			return;
+		}
+		try {
+			delta.accept(d -> {
+				if (d.getResource().getType() == IResource.FILE && isRelevant(d)) {
+					IPath location = d.getResource().getLocation();
+					if (location != null) {
+						record(location.toFile().toPath().toAbsolutePath().normalize());
+					}
+				}
+				return true;
+			});
+		} catch (CoreException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private static boolean isRelevant(IResourceDelta d) {
+		switch (d.getKind()) {
+			case IResourceDelta.ADDED:
+			case IResourceDelta.REMOVED:
+				return true;
+			case IResourceDelta.CHANGED:
+				return (d.getFlags() & CONTENT_FLAGS) != 0;
+			default:
+				return false;
+		}
+	}
+
+	private synchronized void record(Path file) {
+		this.files.add(file);
+	}
+}
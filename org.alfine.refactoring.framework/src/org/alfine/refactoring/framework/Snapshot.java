@@ -0,0 +1,286 @@
+package org.alfine.refactoring.framework;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+/** Content-addressed snapshot of the source trees of a prepared workspace.
+ *
+ *  The snapshot is stored under `<workspace>/.snapshot':
+ *
+ *    blobs/<xx>/<sha-256>  : file content (stored once per distinct content)
+ *    manifest.txt          : <sha-256> TAB <size> TAB <mtime-millis> TAB <relative path>
+ *
+ *  Paths are relative to the workspace folder. Blobs are copies (not links),
+ *  since refactorings write files in place which would modify a linked blob.
+ *  Restored files get their recorded modification time back so that
+ *  `restoreModified' can detect changes by size and time without reading. */
+public class Snapshot {
+
+	public static final String FOLDER   = ".snapshot";
+	public static final String MANIFEST = "manifest.txt";
+
+	private static class FileEntry {
+		private final String hash;
+		private final long   size;
+		private final long   mtime;
+
+		private FileEntry(String hash, long size, long mtime) {
+			this.hash  = hash;
+			this.size  = size;
+			this.mtime = mtime;
+		}
+	}
+
+	private final Path                 location; /* Workspace folder. */
+	private final Path                 folder;
+	private final Map<Path, FileEntry> files = new TreeMap<>(); /* Absolute path -> entry. */
+	private final Set<Path>            dirs  = new HashSet<>(); /* Folders containing snapshot files. */
+	private final List<Path>           roots;
+
+	private Snapshot(Path location, List<Path> roots) {
+		this.location = location;
+		this.folder   = location.resolve(FOLDER);
+		this.roots    = roots;
+	}
+
+	/** Return true if the specified workspace has a snapshot. */
+	public static boolean exists(Path location) {
+		return Files.exists(location.resolve(FOLDER).resolve(MANIFEST));
+	}
+
+	/** Record all files under `roots' (absolute folders within `location'). */
+	public static Snapshot take(Path location, Collection<Path> roots) throws IOException {
+		Snapshot snapshot = new Snapshot(location, normalize(roots));
+		Path     blobs    = snapshot.folder.resolve("blobs");
+
+		if (Files.exists(snapshot.folder)) {
+			FileUtils.deleteDirectory(snapshot.folder.toFile());
+		}
+		Files.createDirectories(blobs);
+
+		for (Path root : snapshot.roots) {
+			if (!Files.isDirectory(root)) {
+				continue;
+			}
+			Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+					String hash = sha256(file);
+					Path   blob = snapshot.blob(hash);
+					if (!Files.exists(blob)) {
+						Files.createDirectories(blob.getParent());
+						Files.copy(file, blob);
+					}
+					snapshot.add(file, new FileEntry(hash, attrs.size(), attrs.lastModifiedTime().toMillis()));
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		}
+
+		try (BufferedWriter out = Files.newBufferedWriter(snapshot.folder.resolve(MANIFEST), StandardCharsets.UTF_8)) {
+			for (String root : snapshot.roots.stream().map(r -> location.relativize(r).toString()).toList()) {
+				out.write("root\t" + root);
+				out.newLine();
+			}
+			for (Map.Entry<Path, FileEntry> entry : snapshot.files.entrySet()) {
+				FileEntry e = entry.getValue();
+				out.write(e.hash + "\t" + e.size + "\t" + e.mtime + "\t" + location.relativize(entry.getKey()));
+				out.newLine();
+			}
+		}
+		System.out.println("Snapshot: " + snapshot.files.size() + " file(s) in " + snapshot.roots.size() + " root(s)");
+		return snapshot;
+	}
+
+	/** Load the snapshot of the specified workspace. */
+	public static Snapshot load(Path location) throws IOException {
+		List<Path>     roots = new ArrayList<>();
+		List<String[]> lines = new ArrayList<>();
+		for (String line : Files.readAllLines(location.resolve(FOLDER).resolve(MANIFEST), StandardCharsets.UTF_8)) {
+			String[] parts = line.split("\t", 4);
+			if (parts[0].equals("root")) {
+				roots.add(location.resolve(parts[1]));
+			} else {
+				lines.add(parts);
+			}
+		}
+		Snapshot snapshot = new Snapshot(location, normalize(roots));
+		for (String[] parts : lines) {
+			snapshot.add(
+				location.resolve(parts[3]).toAbsolutePath().normalize(),
+				new FileEntry(parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2])));
+		}
+		return snapshot;
+	}
+
+	/** Restore the specified files (e.g., files changed by a refactoring). Return restored/deleted files. */
+	public List<Path> restore(Collection<Path> changed) throws IOException {
+		List<Path> result = new ArrayList<>();
+		for (Path file : normalize(changed)) {
+			if (!isWithinRoots(file)) {
+				continue;
+			}
+			if (restoreFile(file)) {
+				result.add(file);
+			}
+		}
+		refresh(result);
+		return result;
+	}
+
+	/** Restore all files that differ (by size or time) from the snapshot and delete files not in the snapshot. */
+	public List<Path> restoreModified() throws IOException {
+		Set<Path> candidates = new HashSet<>();
+		for (Path root : this.roots) {
+			if (!Files.isDirectory(root)) {
+				continue;
+			}
+			Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+					Path      path  = file.toAbsolutePath().normalize();
+					FileEntry entry = files.get(path);
+					if (entry == null || entry.size != attrs.size() || entry.mtime != attrs.lastModifiedTime().toMillis()) {
+						candidates.add(path);
+					}
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		}
+		for (Path file : this.files.keySet()) {
+			if (!Files.exists(file)) {
+				candidates.add(file);
+			}
+		}
+		return restore(candidates);
+	}
+
+	/** Restore `file' from its blob or delete it if it is not part of the snapshot. Return true if changed. */
+	private boolean restoreFile(Path file) throws IOException {
+		FileEntry entry = this.files.get(file);
+		if (entry == null) {
+			if (Files.deleteIfExists(file)) {
+				deleteEmptyParents(file);
+				return true;
+			}
+			return false;
+		}
+		if (Files.exists(file) && Files.size(file) == entry.size && sha256(file).equals(entry.hash)) {
+			Files.setLastModifiedTime(file, FileTime.fromMillis(entry.mtime));
+			return false;
+		}
+		Files.createDirectories(file.getParent());
+		Files.copy(blob(entry.hash), file, StandardCopyOption.REPLACE_EXISTING);
+		Files.setLastModifiedTime(file, FileTime.fromMillis(entry.mtime));
+		return true;
+	}
+
+	/** Delete folders left empty by deleting `file', unless they contained snapshot files. */
+	private void deleteEmptyParents(Path file) throws IOException {
+		Path dir = file.getParent();
+		while (dir != null && isWithinRoots(dir) && !this.roots.contains(dir) && !this.dirs.contains(dir)) {
+			try (Stream<Path> entries = Files.list(dir)) {
+				if (entries.findAny().isPresent()) {
+					return;
+				}
+			}
+			Files.delete(dir);
+			dir = dir.getParent();
+		}
+	}
+
+	/** Synchronize workspace resources with the file system for the specified files. */
+	private static void refresh(List<Path> files) {
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		for (Path file : files) {
+			IFile resource = root.getFileForLocation(new org.eclipse.core.runtime.Path(file.toString()));
+			if (resource == null) {
+				continue;
+			}
+			try {
+				// Refresh the first existing container to also pick up deleted folders.
+				IResource target = resource;
+				while (!target.getLocation().toFile().exists() && target.getParent() instanceof IContainer parent) {
+					target = parent;
+				}
+				target.refreshLocal(target == resource ? IResource.DEPTH_ZERO : IResource.DEPTH_INFINITE, new NullProgressMonitor());
+			} catch (CoreException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private void add(Path file, FileEntry entry) {
+		Path path = file.toAbsolutePath().normalize();
+		this.files.put(path, entry);
+		for (Path dir = path.getParent(); dir != null && !this.dirs.contains(dir); dir = dir.getParent()) {
+			this.dirs.add(dir);
+		}
+	}
+
+	private boolean isWithinRoots(Path path) {
+		for (Path root : this.roots) {
+			if (path.startsWith(root)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Path blob(String hash) {
+		return this.folder.resolve("blobs").resolve(hash.substring(0, 2)).resolve(hash);
+	}
+
+	private static List<Path> normalize(Collection<Path> paths) {
+		return paths.stream().map(p -> p.toAbsolutePath().normalize()).distinct().toList();
+	}
+
+	private static String sha256(Path file) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+		byte[] buffer = new byte[64 * 1024];
+		try (InputStream in = Files.newInputStream(file)) {
+			int n;
+			while ((n = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, n);
+			}
+		}
+		StringBuilder hex = new StringBuilder(64);
+		for (byte b : digest.digest()) {
+			hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		}
+		return hex.toString();
+	}
+}
@@ -1,25 +1,30 @@
 package org.alfine.refactoring.framework;
 
 import java.io.BufferedWriter;
+import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import org.alfine.refactoring.framework.resources.Source;
 import org.alfine.refactoring.suppliers.Cache;
+import org.alfine.utils.ZipPatch;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IProjectDescription;
 import org.eclipse.core.resources.IResource;
@@ -44,6 +49,9 @@ public class Workspace {
 
 	private Cache cache; /* Refactoring descriptor cache. */
 
+	private ChangeTracker tracker = new ChangeTracker(); /* Files changed since workspace was opened (or cleared). */
+	private Snapshot      snapshot;                      /* Snapshot of the prepared source trees (if any). */
+
 	/* Project configuration from configuration file. */
 	private Map<String, ProjectConfiguration> projectMap;
 	private List<ProjectConfiguration>        projectVec;
@@ -135,7 +143,65 @@ public class Workspace {
 
 		initialize(fresh);
 
-		this.cache  = new Cache(config.getCachePath());
+		this.cache  = new Cache(config.getCachePath(), config.getArguments().getCacheFormat());
+
+		if (!fresh) {
+			if (Snapshot.exists(this.location)) {
+				// Start from the prepared state even if a previous run left changes behind.
+				try {
+					this.snapshot = Snapshot.load(this.location);
+					List<Path> restored = this.snapshot.restoreModified();
+					System.out.println("Restored " + restored.size() + " file(s) from snapshot.");
+				} catch (IOException e) {
+					e.printStackTrace();
+					this.snapshot = null;
+				}
+			}
+			// Changes made by refactorings are tracked to export only changed files.
+			this.tracker.start();
+		}
+	}
+
+	/** Record the source trees of all projects (call when the workspace has been prepared). */
+	public void takeSnapshot() {
+		List<Path> roots = new ArrayList<>();
+		for (JavaProject project : projects.values()) {
+			for (Source source : project.getSources()) {
+				roots.add(source.getTarget());
+			}
+		}
+		for (Source source : JavaProject.getSharedSourceArchives().values()) {
+			roots.add(source.getTarget());
+		}
+		try {
+			this.snapshot = Snapshot.take(this.location, roots);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/** Return true if a snapshot of the prepared workspace is available. */
+	public boolean hasSnapshot() {
+		return this.snapshot != null;
+	}
+
+	/** Restore files changed since the change tracker was last cleared from the snapshot. Return true on success. */
+	public boolean restoreSnapshot() {
+		if (this.snapshot == null) {
+			return false;
+		}
+		try {
+			this.snapshot.restore(this.tracker.getFiles());
+			return true;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	/** Return tracker of files changed in this workspace (active unless the workspace was created fresh). */
+	public ChangeTracker getChangeTracker() {
+		return this.tracker;
 	}
 
 	public WorkspaceConfiguration getConfiguration() {
@@ -424,8 +490,11 @@ public class Workspace {
 
 	/** Export project source code. This method is called from `close()'. */
 	public void exportSource() {
+		exportSource(getOutPath());
+	}
 
-		Path output = getOutPath();
+	/** Export project source code into the specified folder. */
+	public void exportSource(Path output) {
 
 		System.out.println("Exporting to " + output.toString());
 
@@ -437,6 +506,17 @@ public class Workspace {
 			}
 		}
 
+		if (this.tracker.isActive()) {
+			try {
+				if (exportChanges(output, this.tracker.getFiles())) {
+					return;
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			System.out.println("Incremental export not possible. Exporting all sources.");
+		}
+
 		for (String key : projects.keySet()) {
 			projects.get(key).exportSource(output);
 		}
@@ -452,6 +532,51 @@ public class Workspace {
 		}
 	}
 
+	/** Export source archives by patching the original archives with the changed files.
+	 *
+	 *  Unchanged entries are copied from the original archives without
+	 *  recompression (see `ZipPatch'). Return false if this is not possible
+	 *  (changes inside nested archives, or unsupported archive format). */
+	private boolean exportChanges(Path output, Set<Path> files) throws IOException {
+
+		/* Archive -> (entry name -> changed file). */
+
+		Map<Source, Map<String, Path>> archives = new LinkedHashMap<>();
+
+		for (JavaProject project : projects.values()) {
+			for (Source source : project.getSources()) {
+				Map<String, Path> changes = archives.computeIfAbsent(source.getArchive(), k -> new TreeMap<>());
+				Path              root    = source.getTarget().toAbsolutePath().normalize();
+				String            prefix  = source.getArchive() == source ? "" : source.getFolder().replaceAll("^/+|/+$", "");
+				for (Path file : files) {
+					if (!file.startsWith(root) || file.equals(root.resolve(".jar"))) {
+						continue;
+					}
+					String name = root.relativize(file).toString().replace(File.separatorChar, '/');
+					if (!prefix.isEmpty()) {
+						name = prefix + "/" + name;
+					}
+					if (name.contains(".jar.dir/")) {
+						return false; // Nested archives are repacked by `PUP.jar'.
+					}
+					changes.put(name, file);
+				}
+			}
+		}
+
+		for (Map.Entry<Source, Map<String, Path>> entry : archives.entrySet()) {
+			Path archive = entry.getKey().getSource();
+			Path dst     = output.resolve(archive.getFileName());
+			System.out.println("Export " + archive.getFileName() + ": " + entry.getValue().size() + " changed file(s)");
+			if (entry.getValue().isEmpty()) {
+				Files.copy(archive, dst, StandardCopyOption.REPLACE_EXISTING);
+			} else if (!ZipPatch.patch(archive, dst, entry.getValue())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/** Return handle to the specified project. */
 	public IProject getProject(String name) {
 		IWorkspace     workspace     = ResourcesPlugin.getWorkspace();
@@ -560,8 +685,13 @@ public class Workspace {
 
 		System.out.println("Exporting project (save?=" + exportToOutput + ")");
 
-		if (exportToOutput) {
-			exportSource();
+		try {
+			if (exportToOutput) {
+				exportSource();
+			}
+		} finally {
+			// The listener is registered with the platform workspace, which outlives this object.
+			this.tracker.stop();
 		}
 	}
 
@@ -48,6 +48,75 @@ public class CommandLineArguments {
 		return cmd.hasOption("descriptor") ? cmd.getOptionValue("descriptor") : null;
 	}
 
+	public String getBatchFile() {
+		return cmd.hasOption("batch") ? cmd.getOptionValue("batch") : null;
+	}
+
+	/** Return number of worker threads used to discover refactoring opportunities (default 1). */
+	public int getJobs() {
+		return cmd.hasOption("jobs") ? Integer.parseInt(cmd.getOptionValue("jobs")) : 1;
+	}
+
+	/** Return number of compilation units parsed together by one parser (default 100). */
+	public int getParseBatchSize() {
+		return cmd.hasOption("parse-batch") ? Integer.parseInt(cmd.getOptionValue("parse-batch")) : 100;
+	}
+
+	/** Return max number of compile errors tolerated while caching opportunities (-1 means no limit). */
+	public int getMaxCompileErrors() {
+		return cmd.hasOption("max-compile-errors") ? Integer.parseInt(cmd.getOptionValue("max-compile-errors")) : -1;
+	}
+
+	/** Return opportunity cache format, `text' (default) or `segment'. */
+	public String getCacheFormat() {
+		return cmd.hasOption("cache-format") ? cmd.getOptionValue("cache-format") : "text";
+	}
+
+	/** Return compression level of exported archives (`stored', `default' or 0-9), or null if not specified. */
+	public String getCompressionLevel() {
+		return cmd.hasOption("compression") ? cmd.getOptionValue("compression") : null;
+	}
+
+	/** Return folder where per-unit opportunities are kept between prepares, or null if not specified. */
+	public String getIncrementalFolder() {
+		return cmd.hasOption("incremental") ? cmd.getOptionValue("incremental") : null;
+	}
+
+	/** Return profile (JFR recording or collapsed stacks) to read hot methods from, or null if not specified. */
+	public String getProfile() {
+		return cmd.hasOption("profile") ? cmd.getOptionValue("profile") : null;
+	}
+
+	/** Return min share of all samples a method must have as leaf frame to be hot (default 0.001). */
+	public double getProfileMinSelf() {
+		return cmd.hasOption("profile-min-self") ? Double.parseDouble(cmd.getOptionValue("profile-min-self")) : 0.001;
+	}
+
+	/** Return max number of opportunities kept per hot method, or 0 if all are kept (default). */
+	public int getTopK() {
+		return cmd.hasOption("top-k") ? Integer.parseInt(cmd.getOptionValue("top-k")) : 0;
+	}
+
+	/** Return max number of statements of extracted ranges, or 0 for no limit (default). */
+	public int getExtractMaxLength() {
+		return cmd.hasOption("extract-max-length") ? Integer.parseInt(cmd.getOptionValue("extract-max-length")) : 0;
+	}
+
+	/** Return distance between start statements of extracted ranges (default 1). */
+	public int getExtractStride() {
+		return cmd.hasOption("extract-stride") ? Integer.parseInt(cmd.getOptionValue("extract-stride")) : 1;
+	}
+
+	/** Return extracted range strategies (see `ExtractMethodEnumerator', default `all'). */
+	public String getExtractRanges() {
+		return cmd.hasOption("extract-ranges") ? cmd.getOptionValue("extract-ranges") : "all";
+	}
+
+	/** Return hash of method parameter lists in context paths (`md5' or `murmur3'), or null if not specified. */
+	public String getContextHash() {
+		return cmd.hasOption("context-hash") ? cmd.getOptionValue("context-hash") : null;
+	}
+
 	public boolean hasOption(String opt) {
 		return cmd.hasOption(opt);
 	}
@@ -72,6 +141,62 @@ public class CommandLineArguments {
         line.setRequired(false);
         options.addOption(line);
 
+        Option batch = new Option("b", "batch", true, "File with one refactoring opportunity cache line per line (use `-' to read from stdin)");
+        batch.setRequired(false);
+        options.addOption(batch);
+
+        Option jobs = new Option("j", "jobs", true, "number of worker threads used to discover refactoring opportunities (default 1)");
+        jobs.setRequired(false);
+        options.addOption(jobs);
+
+        Option parseBatch = new Option("u", "parse-batch", true, "number of compilation units parsed together sharing one binding environment (default 100)");
+        parseBatch.setRequired(false);
+        options.addOption(parseBatch);
+
+        Option maxCompileErrors = new Option("e", "max-compile-errors", true, "fail prepare if parsed units have more compile errors than this (default no limit)");
+        maxCompileErrors.setRequired(false);
+        options.addOption(maxCompileErrors);
+
+        Option cacheFormat = new Option("f", "cache-format", true, "opportunity cache format: `text' (descriptors.txt per context) or `segment' (single indexed file) (default text)");
+        cacheFormat.setRequired(false);
+        options.addOption(cacheFormat);
+
+        Option compression = new Option("z", "compression", true, "compression level of exported source archives: `stored' (fastest, for scratch outputs), `default' or 0-9");
+        compression.setRequired(false);
+        options.addOption(compression);
+
+        Option incremental = new Option("i", "incremental", true, "folder where opportunities of each compilation unit are kept and reused by later prepares if unchanged");
+        incremental.setRequired(false);
+        options.addOption(incremental);
+
+        Option profile = new Option("P", "profile", true, "read hot methods from a profile (`.jfr' recording or collapsed stacks) instead of `methods.config'");
+        profile.setRequired(false);
+        options.addOption(profile);
+
+        Option profileMinSelf = new Option("M", "profile-min-self", true, "min share of samples (0-1) with a method as leaf frame for it to be hot (default 0.001)");
+        profileMinSelf.setRequired(false);
+        options.addOption(profileMinSelf);
+
+        Option topK = new Option("K", "top-k", true, "keep only the K highest ranked opportunities per hot method, scaled by self samples with --profile (default all)");
+        topK.setRequired(false);
+        options.addOption(topK);
+
+        Option extractMaxLength = new Option("X", "extract-max-length", true, "max number of statements extracted as a method (default no limit)");
+        extractMaxLength.setRequired(false);
+        options.addOption(extractMaxLength);
+
+        Option extractStride = new Option("S", "extract-stride", true, "only extract statement ranges starting at every n-th statement of a block (default 1)");
+        extractStride.setRequired(false);
+        options.addOption(extractStride);
+
+        Option extractRanges = new Option("R", "extract-ranges", true, "statement ranges extracted as methods: `all', `aligned' (at compound statements) and/or `loops' (containing loops), comma separated (default all)");
+        extractRanges.setRequired(false);
+        options.addOption(extractRanges);
+
+        Option contextHash = new Option("H", "context-hash", true, "hash of method parameter lists in opportunity context paths: `md5' (default, as existing caches) or `murmur3'");
+        contextHash.setRequired(false);
+        options.addOption(contextHash);
+
         Option cacheFolder = new Option("c", "cache", true, "cache folder where project specific refactoring opportunity cache files are stored");
         cacheFolder.setRequired(true);
         options.addOption(cacheFolder);
@@ -1,13 +1,25 @@
 package org.alfine.refactoring.framework.launch;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Hashtable;
+import java.util.LinkedList;
+import java.util.List;
 
 import org.alfine.refactoring.framework.Workspace;
 import org.alfine.refactoring.framework.WorkspaceConfiguration;
 import org.alfine.refactoring.processors.Processor;
+import org.alfine.refactoring.processors.RefactoringResult;
+import org.alfine.refactoring.processors.ResultSink;
 import org.alfine.refactoring.suppliers.HotMethodRefactoringFinder;
+import org.alfine.utils.DigestUtil;
+import org.alfine.utils.PUP;
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.IWorkspaceDescription;
 import org.eclipse.core.resources.ResourcesPlugin;
@@ -16,6 +28,7 @@ import org.eclipse.core.runtime.Platform;
 import org.eclipse.equinox.app.IApplication;
 import org.eclipse.equinox.app.IApplicationContext;
 import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.ltk.core.refactoring.Change;
 
 public class Main implements IApplication {
 	@Override
@@ -33,9 +46,21 @@ public class Main implements IApplication {
 		
 		String[]             args      = (String [])context.getArguments().get(IApplicationContext.APPLICATION_ARGS);
 		CommandLineArguments arguments = new CommandLineArguments(args);
+
+		if (arguments.getCompressionLevel() != null) {
+			PUP.setCompressionLevel(PUP.parseCompressionLevel(arguments.getCompressionLevel()));
+		}
+
+		if (arguments.getContextHash() != null) {
+			DigestUtil.setContextHash(arguments.getContextHash());
+		}
+
 		if (arguments.getPrepare()) {
 			prepareWorkspace(arguments);
 			return IApplication.EXIT_OK;
+		} else if (arguments.getBatchFile() != null) {
+			applyRefactorings(arguments);
+			return IApplication.EXIT_OK;
 		} else {
 			applyRefactoring(arguments);
 			return IApplication.EXIT_OK;
@@ -57,13 +82,99 @@ public class Main implements IApplication {
 		Path      location     = Paths.get(Platform.getInstanceLocation().getURL().getFile());
 		Path      reportFolder = location.resolve("report");
 
-		boolean success = Processor.refactor(descriptor, reportFolder);
+		boolean success;
+		try (ResultSink results = new ResultSink(reportFolder)) {
+			RefactoringResult result = Processor.refactor(descriptor);
+			results.write(result);
+			success = result.isSuccess();
+		}
 
 		workspace.close(success);
 
 		return success;
 	}
 
+	/** Apply each descriptor in the batch file to the prepared workspace, one at a time.
+	 *
+	 *  The workspace is opened once. After each refactoring the result is exported into
+	 *  `<out>/<index>' and the workspace is restored from the snapshot taken by `--prepare'
+	 *  (or by performing the undo change if there is no snapshot), so that
+	 *  every descriptor is applied to the workspace as it was after `--prepare'. A status
+	 *  record `<index> <success> <descriptor>' (tab separated) is appended to
+	 *  `report/batch-status.txt' for each descriptor, and the full result (with
+	 *  `index') to `report/refactoring-results.jsonl' (see `ResultSink'). */
+	public static int applyRefactorings(CommandLineArguments arguments) throws Exception {
+
+		final String batch = arguments.getBatchFile();
+		if (batch == null) {
+			throw new Exception("Please specify a batch file using the appropriate command line switch.");
+		}
+
+		Workspace workspace    = new Workspace(new WorkspaceConfiguration(arguments), false);
+		Path      location     = Paths.get(Platform.getInstanceLocation().getURL().getFile());
+		Path      reportFolder = location.resolve("report");
+		Path      statusFile   = reportFolder.resolve("batch-status.txt");
+
+		Files.createDirectories(reportFolder); // Not created by `--prepare'.
+
+		int index = 0;
+
+		try (
+			BufferedReader in  = "-".equals(batch)
+				? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+				: Files.newBufferedReader(location.resolve(batch));
+			BufferedWriter out = Files.newBufferedWriter(
+				statusFile,
+				StandardOpenOption.CREATE,
+				StandardOpenOption.APPEND);
+			ResultSink     results = new ResultSink(reportFolder)
+		) {
+			String descriptor;
+			while ((descriptor = in.readLine()) != null) {
+				descriptor = descriptor.trim();
+				if (descriptor.isEmpty()) {
+					continue;
+				}
+
+				System.out.println("Using descriptor [" + index + "] = " + descriptor);
+
+				// Only files changed by this descriptor are exported (see `Workspace.exportSource').
+				workspace.getChangeTracker().clear();
+
+				// Undo changes are only needed (and only built) without a snapshot.
+				List<Change>      undoChanges = workspace.hasSnapshot() ? null : new LinkedList<>();
+				RefactoringResult result      = Processor.refactor(descriptor, undoChanges);
+				boolean           success     = result.isSuccess();
+
+				if (success) {
+					workspace.exportSource(workspace.getOutPath().resolve(String.valueOf(index)));
+				}
+
+				// Prefer the snapshot taken by `--prepare' (restores exactly the changed files).
+				boolean restored = workspace.hasSnapshot()
+					? workspace.restoreSnapshot()
+					: Processor.undo(undoChanges);
+
+				out.write(index + "\t" + success + "\t" + descriptor);
+				out.newLine();
+				out.flush();
+				results.write(index, result);
+
+				if (!restored) {
+					// Remaining descriptors would not be applied to a pristine workspace.
+					throw new Exception("Failed to restore workspace after descriptor [" + index + "].");
+				}
+
+				++index;
+			}
+		} finally {
+			// Results were exported per descriptor; stops the change tracker.
+			workspace.close(false);
+		}
+
+		return index;
+	}
+
 	private void prepareWorkspace(CommandLineArguments arguments) throws Exception {
 		final String compliance = arguments.getCompilerComplianceVersion();
 		if (compliance == null) {
@@ -75,6 +186,9 @@ public class Main implements IApplication {
 
 		Workspace workspace = new Workspace(new WorkspaceConfiguration(arguments), true);
 
+		// Refactoring runs restore the prepared source trees from this snapshot.
+		workspace.takeSnapshot();
+
 		// The `packages.config' file is a Java properties file mapping project
 		// names to package names. The user should can configure this file
 		// to specify to the framework which packages are open for
@@ -93,8 +207,8 @@ public class Main implements IApplication {
 		Path packagesConfigHelperPath = workspace.getConfiguration().getSrcPath().resolve("packages.config.helper");
 		workspace.writePackagesConfigHelper(packagesConfigHelperPath);
 
-		if (WorkspaceConfiguration.hasMethodsConfig()) {
-			// Cache opportunities based on a list of method signatures.
+		if (WorkspaceConfiguration.hasMethodsConfig() || arguments.getProfile() != null) {
+			// Cache opportunities based on a list of method signatures (or the hot methods of a profile).
 			// Originally intended for hot methods, but can be applied to any available function.
 			new HotMethodRefactoringFinder(workspace).cacheOpportunities();
 		} else {
@@ -41,6 +41,11 @@ public class Source {
 		return this.parent;
 	}
 
+	/** Return the source whose archive contains this source root (this source or its parent). */
+	public Source getArchive() {
+		return getParent() == null ? this : getParent();
+	}
+
 	/** Return `Path' to source archive or `null' if this archive has a parent. */
 	public Path getSource() {
 		return this.source;
@@ -66,10 +71,9 @@ public class Source {
 			try {
 
 				if (!Files.exists(getTarget().toAbsolutePath())) {
-					PUP.unjar(
-						new JarFile(getSource().toAbsolutePath().toString()),
-						getTarget().toAbsolutePath()
-					);
+					try (JarFile jf = new JarFile(getSource().toAbsolutePath().toString())) {
+						PUP.unjar(jf, getTarget().toAbsolutePath());
+					}
 				}
 
 			} catch (Exception e) {
@@ -120,9 +124,11 @@ public class Source {
 
 			if (Files.exists(getParent().getTarget()) && Files.exists(getTarget())) {
 				try {
+					// The parent tree is only packed, so it may share files with this one.
 					PUP.treeCopy(
 						getTarget(),
-						getParent().getTarget().resolve(getFolder())
+						getParent().getTarget().resolve(getFolder()),
+						true
 					);
 				} catch (Exception e) {
 					e.printStackTrace();
@@ -0,0 +1,149 @@
+package org.alfine.refactoring.processors;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.ISourceReference;
+import org.eclipse.jdt.core.ISourceRange;
+import org.eclipse.jdt.core.JavaConventions;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.refactoring.IJavaRefactorings;
+import org.eclipse.ltk.core.refactoring.RefactoringStatus;
+
+/** Cheap checks of descriptor arguments before a refactoring is created.
+ *
+ *  Only the arguments and the Java model elements of their handles are used
+ *  (no parsing, no searches), so that descriptors that are bound to fail are
+ *  rejected before `checkInitialConditions' and the (expensive) final
+ *  conditions run. A descriptor is rejected (fatal error) if
+ *
+ *    - an element handle (`input', `element') denotes an element that does
+ *      not exist (e.g., a cached descriptor of a changed source tree),
+ *    - a rename has no new `name', the name is not a valid identifier or
+ *      equals the current name of the element,
+ *    - a rename or inline method targets a binary (read-only) element,
+ *    - `selection' is malformed, empty for extractions, or outside the source
+ *      of the compilation unit. */
+public class Preflight {
+	private Preflight() {} // Static class.
+
+	private static final Set<String> RENAMES = Set.of(
+		IJavaRefactorings.RENAME_FIELD,
+		IJavaRefactorings.RENAME_LOCAL_VARIABLE,
+		IJavaRefactorings.RENAME_METHOD,
+		IJavaRefactorings.RENAME_TYPE,
+		IJavaRefactorings.RENAME_TYPE_PARAMETER
+	);
+
+	private static final Set<String> EXTRACTIONS = Set.of(
+		IJavaRefactorings.EXTRACT_CONSTANT,
+		IJavaRefactorings.EXTRACT_LOCAL_VARIABLE,
+		IJavaRefactorings.EXTRACT_METHOD
+	);
+
+	/** Return status with the reasons to reject the descriptor (no entries if plausible). */
+	public static RefactoringStatus check(String id, Map<String, String> args) {
+		RefactoringStatus status = new RefactoringStatus();
+
+		IJavaElement input = getElement(args.get("input"), "input", status);
+		getElement(args.get("element"), "element", status);
+		if (status.hasFatalError()) {
+			return status;
+		}
+
+		String selection = args.get("selection");
+		if (selection != null) {
+			status.merge(checkSelection(selection, EXTRACTIONS.contains(id), getSourceLength(input)));
+		}
+
+		if (RENAMES.contains(id) && input != null) {
+			if (isBinary(input)) {
+				status.addFatalError("Element is read-only: " + input.getElementName());
+			} else {
+				status.merge(checkName(args.get("name"), input.getElementName(), input.getJavaProject()));
+			}
+		} else if (IJavaRefactorings.INLINE_METHOD.equals(id)) {
+			IJavaElement element = args.get("element") != null ? JavaCore.create(args.get("element")) : null;
+			if (element != null && element.getElementType() == IJavaElement.METHOD && isBinary(element)) {
+				status.addFatalError("Method has no source: " + element.getElementName());
+			}
+		}
+		return status;
+	}
+
+	/** Return element of `handle' (null if there is none or it can not be told). */
+	private static IJavaElement getElement(String handle, String name, RefactoringStatus status) {
+		if (handle == null) {
+			return null;
+		}
+		IJavaElement element = JavaCore.create(handle);
+		if (element != null && !element.exists()) {
+			status.addFatalError("Element `" + name + "' does not exist: " + handle);
+		}
+		return element;
+	}
+
+	private static boolean isBinary(IJavaElement element) {
+		return element instanceof IMember member && member.isBinary();
+	}
+
+	/** Return length of the source of the compilation unit of `element', or -1 if not known. */
+	private static int getSourceLength(IJavaElement element) {
+		IJavaElement unit = element != null ? element.getAncestor(IJavaElement.COMPILATION_UNIT) : null;
+		if (unit instanceof ISourceReference source) {
+			try {
+				ISourceRange range = source.getSourceRange();
+				return range != null ? range.getOffset() + range.getLength() : -1;
+			} catch (JavaModelException e) {
+				return -1;
+			}
+		}
+		return -1;
+	}
+
+	/** Check `selection' (`<offset> <length>'), which must be non-empty if `isExtraction'
+	 *  and within `sourceLength' characters (unless negative). */
+	public static RefactoringStatus checkSelection(String selection, boolean isExtraction, int sourceLength) {
+		String[] parts = selection.trim().split("\\s+");
+		int      offset;
+		int      length;
+		try {
+			if (parts.length != 2) {
+				throw new NumberFormatException();
+			}
+			offset = Integer.parseInt(parts[0]);
+			length = Integer.parseInt(parts[1]);
+		} catch (NumberFormatException e) {
+			return RefactoringStatus.createFatalErrorStatus("Malformed selection: `" + selection + "'");
+		}
+		if (offset < 0 || length < 0) {
+			return RefactoringStatus.createFatalErrorStatus("Negative selection: `" + selection + "'");
+		} else if (isExtraction && length == 0) {
+			return RefactoringStatus.createFatalErrorStatus("Empty selection: `" + selection + "'");
+		} else if (sourceLength >= 0 && (long)offset + length > sourceLength) {
+			return RefactoringStatus.createFatalErrorStatus("Selection `" + selection + "' is outside the source (" + sourceLength + " characters)");
+		}
+		return new RefactoringStatus();
+	}
+
+	/** Check new `name' of an element currently named `current' (in `project', if known). */
+	public static RefactoringStatus checkName(String name, String current, IJavaProject project) {
+		if (name == null || name.isEmpty()) {
+			return RefactoringStatus.createFatalErrorStatus("No new name");
+		} else if (name.equals(current)) {
+			return RefactoringStatus.createFatalErrorStatus("New name equals the current name: " + name);
+		}
+		String  source     = project != null ? project.getOption(JavaCore.COMPILER_SOURCE,     true) : JavaCore.getOption(JavaCore.COMPILER_SOURCE);
+		String  compliance = project != null ? project.getOption(JavaCore.COMPILER_COMPLIANCE, true) : JavaCore.getOption(JavaCore.COMPILER_COMPLIANCE);
+		IStatus valid      = JavaConventions.validateIdentifier(name, source, compliance);
+		if (valid.getSeverity() == IStatus.ERROR) {
+			return RefactoringStatus.createFatalErrorStatus("Invalid name `" + name + "': " + valid.getMessage());
+		}
+		return new RefactoringStatus();
+	}
+}
@@ -1,17 +1,16 @@
 package org.alfine.refactoring.processors;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.OutputStream;
-import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
 
 import org.alfine.refactoring.suppliers.RefactoringDescriptorFactory;
-import org.alfine.utils.IOUtils;
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.refactoring.descriptors.JavaRefactoringDescriptor;
 import org.eclipse.ltk.core.refactoring.Change;
+import org.eclipse.ltk.core.refactoring.CompositeChange;
 import org.eclipse.ltk.core.refactoring.RefactoringContext;
 import org.eclipse.ltk.core.refactoring.RefactoringContribution;
 import org.eclipse.ltk.core.refactoring.RefactoringCore;
@@ -39,18 +38,6 @@ public class Processor {
 		return descriptor;
 	}
 
-	private static void writeStatusToOutputStream(String header, RefactoringStatus status, OutputStream out) {
-		try {
-			out.write(header.getBytes());
-			out.write(System.getProperty("line.separator").getBytes());
-			for (RefactoringStatusEntry entry : status.getEntries()) {
-				out.write(entry.toString().getBytes());
-			}
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-	}
-
 	private static String errorCodeAsString(int code) {
 		switch (code) {
 		case RefactoringStatus.OK:      return "OK";
@@ -62,71 +49,145 @@ public class Processor {
 		}
 	}
 
-	private static org.eclipse.ltk.core.refactoring.Refactoring createRefactoring(String id, Map<String, String> args, OutputStream stdout) {
+	private static void addStatus(String phase, RefactoringStatus status, RefactoringResult result) {
+		for (RefactoringStatusEntry entry : status.getEntries()) {
+			result.addStatus(phase, errorCodeAsString(entry.getSeverity()), entry.getCode(), entry.getMessage());
+		}
+	}
+
+	/** Add files affected by `change' (as far as it tells) to `result'. */
+	private static void addChanged(Change change, RefactoringResult result) {
+		if (change instanceof CompositeChange composite) {
+			for (Change child : composite.getChildren()) {
+				addChanged(child, result);
+			}
+			return;
+		}
+		Object[] affected = change.getAffectedObjects();
+		if (affected == null) {
+			return;
+		}
+		for (Object o : affected) {
+			if (o instanceof IResource resource) {
+				result.addChanged(resource.getFullPath().toString());
+			} else if (o instanceof IJavaElement element && element.getPath() != null) {
+				result.addChanged(element.getPath().toString());
+			}
+		}
+	}
+
+	private static org.eclipse.ltk.core.refactoring.Refactoring createRefactoring(String id, Map<String, String> args, RefactoringResult result) {
+		RefactoringMetrics metrics = result.getMetrics();
+
+		metrics.begin(RefactoringMetrics.PHASE_PREFLIGHT);
+		RefactoringStatus preflightStatus = Preflight.check(id, args);
+		metrics.end();
+
+		addStatus(RefactoringMetrics.PHASE_PREFLIGHT, preflightStatus, result);
+
+		if (preflightStatus.hasError()) {
+			System.err.println("Refactoring rejected by preflight checks.");
+			metrics.setOutcome(RefactoringMetrics.OUTCOME_REJECTED_PREFLIGHT);
+			return null;
+		}
+
+		metrics.begin(RefactoringMetrics.PHASE_VALIDATE);
 		JavaRefactoringDescriptor descriptor       = getDescriptor(id, args);
 		RefactoringStatus         descriptorStatus = descriptor.validateDescriptor();
+		metrics.end();
 
-		writeStatusToOutputStream("[Descriptor validation status]", descriptorStatus, stdout);
+		addStatus(RefactoringMetrics.PHASE_VALIDATE, descriptorStatus, result);
 
 		if (descriptorStatus.hasError()) {
 			System.err.println("Invalid refactoring descriptor.");
+			metrics.setOutcome(RefactoringMetrics.OUTCOME_INVALID_DESCRIPTOR);
 			return null;
 		}
 
 		org.eclipse.ltk.core.refactoring.Refactoring refactoring = null;
 		try {
+			metrics.begin(RefactoringMetrics.PHASE_CONTEXT);
 			RefactoringStatus  contextStatus = new RefactoringStatus();
 			RefactoringContext ctx           = descriptor.createRefactoringContext(contextStatus);
-			writeStatusToOutputStream("[Context validation status]", contextStatus, stdout);
+			metrics.end();
+			addStatus(RefactoringMetrics.PHASE_CONTEXT, contextStatus, result);
 			if (contextStatus.hasError()) {
 				System.err.println("Invalid refactoring context.");
+				metrics.setOutcome(RefactoringMetrics.OUTCOME_INVALID_CONTEXT);
 				return null;
 			}
 			refactoring = ctx.getRefactoring();
 		} catch (CoreException e) {
 			e.printStackTrace();
+			metrics.setOutcome(RefactoringMetrics.OUTCOME_INVALID_CONTEXT);
 		}
 		return refactoring;
 	}
 
-	private static boolean createAndPerformChange(String id, Map<String, String> args, OutputStream stdout) {
-		org.eclipse.ltk.core.refactoring.Refactoring refactoring = createRefactoring(id, args, stdout);		
+	private static boolean createAndPerformChange(String id, Map<String, String> args, List<Change> undoChanges, RefactoringResult result) {
+		RefactoringMetrics                           metrics     = result.getMetrics();
+		org.eclipse.ltk.core.refactoring.Refactoring refactoring = createRefactoring(id, args, result);
+		if (refactoring == null) {
+			return false;
+		}
 		try {
-			RefactoringStatus status = refactoring.checkAllConditions(new NullProgressMonitor());
-
-			if (status.hasEntries()) {
-				StringBuilder sb = new StringBuilder();
-				int i = 0;
-				for (RefactoringStatusEntry e : status.getEntries()) {
-					sb.append("RefactoringStatusEntry");
-					sb.append("[").append(i++).append("]");
-					sb.append("(").append(errorCodeAsString(e.getCode())).append(")");
-					sb.append(System.getProperty("line.separator"));
-					sb.append(e.getMessage());
-				}
-				sb.append(System.getProperty("line.separator"));
-				stdout.write(sb.toString().getBytes());
+			// Initial conditions first (as `checkAllConditions'), but stop on errors, so that
+			// the final conditions (e.g., searches of renames) only run for plausible candidates.
+			metrics.begin(RefactoringMetrics.PHASE_INITIAL);
+			RefactoringStatus initialStatus = refactoring.checkInitialConditions(new NullProgressMonitor());
+			metrics.end();
+
+			addStatus(RefactoringMetrics.PHASE_INITIAL, initialStatus, result);
+
+			if (initialStatus.hasError()) {
+				System.err.println("Refactoring could not be applied: Initial conditions not met.");
+				metrics.setOutcome(RefactoringMetrics.OUTCOME_REJECTED_INITIAL);
+				return false;
 			}
-			if (status.hasError()) {
+
+			metrics.begin(RefactoringMetrics.PHASE_FINAL);
+			RefactoringStatus finalStatus = refactoring.checkFinalConditions(new NullProgressMonitor());
+			metrics.end();
+
+			addStatus(RefactoringMetrics.PHASE_FINAL, finalStatus, result);
+
+			if (finalStatus.hasError()) {
 				System.err.println("Refactoring could not be applied: Invalid refactoring.");
+				metrics.setOutcome(RefactoringMetrics.OUTCOME_REJECTED_FINAL);
 				return false;
 			}
 
 			Change change = null;
 			try {
+				metrics.begin(RefactoringMetrics.PHASE_CHANGE);
 				change = refactoring.createChange(new NullProgressMonitor());
+				metrics.end();
 				if (change != null) {
 					System.out.println("ChangeDescriptor: " + change.getDescriptor().toString());
+					addChanged(change, result);
+					metrics.begin(RefactoringMetrics.PHASE_PERFORM);
 					Object o = change.perform(new NullProgressMonitor());
 					if (o == null) {
+						metrics.setOutcome(RefactoringMetrics.OUTCOME_FAILED);
 						return false; // Failed to apply change.
 					}
+					if (o instanceof Change undo) {
+						if (undoChanges != null) {
+							undo.initializeValidationData(new NullProgressMonitor());
+							undoChanges.add(undo);
+						} else {
+							undo.dispose(); // Not needed (e.g., the workspace is restored from a snapshot).
+						}
+					}
+					metrics.end();
 				} else {
 					System.err.println("Refactoring could not be applied: Change produced by refactoring is null.");
+					metrics.setOutcome(RefactoringMetrics.OUTCOME_NO_CHANGE);
 					return false;
 				}
 			} catch (Exception e) {
 				e.printStackTrace();
+				metrics.setOutcome(RefactoringMetrics.OUTCOME_ERROR);
 				return false; // Fail.
 			} finally {
 				if (change != null) {					
@@ -135,22 +196,67 @@ public class Processor {
 			}
 		} catch (Exception e) {
 			e.printStackTrace();
+			metrics.setOutcome(RefactoringMetrics.OUTCOME_ERROR);
 			return false;
 		}
+		metrics.setOutcome(RefactoringMetrics.OUTCOME_APPLIED);
 		return true;
 	}
 
-	public static boolean refactor(String descriptor, Path outputLocation) {
-		SimpleDescriptor desc    = RefactoringDescriptorFactory.getSimple(descriptor);
-		boolean          success = false;
-		try (ByteArrayOutputStream out = new ByteArrayOutputStream(512)) {
-			success = createAndPerformChange(desc.getID(), desc.getArguments(), out);
-			out.write("-----------------------------------------------------------".getBytes());
-			out.write(System.getProperty("line.separator").getBytes());
-			IOUtils.appendToFile(outputLocation.resolve("refactoring-output.txt"), out.toByteArray());
+	public static RefactoringResult refactor(String descriptor) {
+		return refactor(descriptor, null);
+	}
+
+	/** Apply refactoring and add the undo change to `undoChanges' (if not null) so that
+	 *  the workspace can be restored after the result has been exported. The result (status
+	 *  entries, changed files and phase metrics) is meant for a `ResultSink'. */
+	public static RefactoringResult refactor(String descriptor, List<Change> undoChanges) {
+		SimpleDescriptor desc  = null;
+		String           error = "No refactoring ID.";
+		try {
+			desc = RefactoringDescriptorFactory.getSimple(descriptor);
+		} catch (RuntimeException e) {
+			error = "Malformed descriptor: " + e.getMessage();
+		}
+		if (desc == null || desc.getID() == null) {
+			// Reported as a failed result, so that a batch continues with the next descriptor.
+			System.err.println("Refactoring could not be applied: " + error);
+			RefactoringResult result = new RefactoringResult("", descriptor);
+			result.addStatus(RefactoringMetrics.PHASE_PARSE, "FATAL", 0, error);
+			result.getMetrics().setOutcome(RefactoringMetrics.OUTCOME_MALFORMED);
+			return result;
+		}
+
+		RefactoringResult result = new RefactoringResult(desc.getID(), descriptor);
+		try {
+			result.setSuccess(createAndPerformChange(desc.getID(), desc.getArguments(), undoChanges, result));
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
+		result.getMetrics().end();
+		return result;
+	}
+
+	/** Perform undo changes in reverse order. Return true if the workspace was restored. */
+	public static boolean undo(List<Change> undoChanges) {
+		boolean success = true;
+		for (int i = undoChanges.size() - 1; i >= 0; --i) {
+			Change undo = undoChanges.get(i);
+			try {
+				if (undo.isValid(new NullProgressMonitor()).hasFatalError()) {
+					System.err.println("Undo change is no longer valid: " + undo.getName());
+					success = false;
+				} else if (undo.perform(new NullProgressMonitor()) == null) {
+					success = false;
+				}
+			} catch (Exception e) {
+				e.printStackTrace();
+				success = false;
+			} finally {
+				undo.dispose();
+			}
+		}
+		undoChanges.clear();
 		return success;
 	}
 }
@@ -0,0 +1,196 @@
+package org.alfine.refactoring.processors;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObject;
+
+/** Wall time, CPU time and allocated bytes per phase of applying one refactoring.
+ *
+ *  Phases are measured on the current thread between `begin' and `end' (CPU
+ *  time and allocated bytes are -1 where the JVM does not support them). Each
+ *  phase is also committed as a `RefactoringPhaseEvent', which is recorded
+ *  only while a JFR recording is running. `toJson' returns the fields added
+ *  to `RefactoringResult' records:
+ *
+ *    {"id":..., "outcome":..., "descriptor":..., "wall":..., "cpu":..., "allocated":...,
+ *     "phases":[{"phase":..., "wall":..., "cpu":..., "allocated":...}, ...]}
+ *
+ *  Times are in nanoseconds; totals are the sums over measured phases. */
+public class RefactoringMetrics {
+
+	public static final String PHASE_PARSE     = "parse";     /* Decoding the descriptor line (status entries only). */
+	public static final String PHASE_PREFLIGHT = "preflight"; /* `Preflight.check'. */
+	public static final String PHASE_VALIDATE  = "validate";  /* `validateDescriptor'. */
+	public static final String PHASE_CONTEXT   = "context";   /* `createRefactoringContext'. */
+	public static final String PHASE_INITIAL   = "initial";   /* `checkInitialConditions'. */
+	public static final String PHASE_FINAL     = "final";     /* `checkFinalConditions'. */
+	public static final String PHASE_CHANGE    = "change";    /* `createChange'. */
+	public static final String PHASE_PERFORM   = "perform";   /* `Change.perform' (and undo bookkeeping). */
+
+	public static final String OUTCOME_APPLIED            = "applied";
+	public static final String OUTCOME_MALFORMED          = "malformed";        /* Descriptor line could not be decoded. */
+	public static final String OUTCOME_REJECTED_PREFLIGHT = "rejected-preflight";
+	public static final String OUTCOME_INVALID_DESCRIPTOR = "invalid-descriptor";
+	public static final String OUTCOME_INVALID_CONTEXT    = "invalid-context";
+	public static final String OUTCOME_REJECTED_INITIAL   = "rejected-initial"; /* Initial conditions have errors. */
+	public static final String OUTCOME_REJECTED_FINAL     = "rejected-final";   /* Final conditions have errors. */
+	public static final String OUTCOME_NO_CHANGE          = "no-change";
+	public static final String OUTCOME_FAILED             = "failed";           /* Change could not be performed. */
+	public static final String OUTCOME_ERROR              = "error";            /* Exception. */
+
+	private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+	private static final boolean isCpuTime   = isCpuTimeSupported();
+	private static final boolean isAllocated = isAllocatedSupported();
+
+	private static class Phase {
+		private final String name;
+		private final long   wall;
+		private final long   cpu;
+		private final long   allocated;
+
+		private Phase(String name, long wall, long cpu, long allocated) {
+			this.name      = name;
+			this.wall      = wall;
+			this.cpu       = cpu;
+			this.allocated = allocated;
+		}
+	}
+
+	private final String      id;
+	private final String      descriptor;
+	private final List<Phase> phases  = new ArrayList<>();
+	private       String      outcome = OUTCOME_ERROR;
+
+	/* Current phase. */
+	private String               phase;
+	private long                 wall;
+	private long                 cpu;
+	private long                 allocated;
+	private RefactoringPhaseEvent event;
+
+	public RefactoringMetrics(String id, String descriptor) {
+		this.id         = id;
+		this.descriptor = descriptor;
+	}
+
+	private static boolean isCpuTimeSupported() {
+		try {
+			if (threads.isCurrentThreadCpuTimeSupported() && !threads.isThreadCpuTimeEnabled()) {
+				threads.setThreadCpuTimeEnabled(true);
+			}
+			return threads.isCurrentThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled();
+		} catch (UnsupportedOperationException e) {
+			return false;
+		}
+	}
+
+	private static boolean isAllocatedSupported() {
+		try {
+			if (threads instanceof com.sun.management.ThreadMXBean t && t.isThreadAllocatedMemorySupported()) {
+				if (!t.isThreadAllocatedMemoryEnabled()) {
+					t.setThreadAllocatedMemoryEnabled(true);
+				}
+				return t.isThreadAllocatedMemoryEnabled();
+			}
+		} catch (UnsupportedOperationException e) {
+			// Not supported.
+		}
+		return false;
+	}
+
+	private static long getCpuTime() {
+		return isCpuTime ? threads.getCurrentThreadCpuTime() : -1;
+	}
+
+	private static long getAllocated() {
+		return isAllocated ? ((com.sun.management.ThreadMXBean)threads).getCurrentThreadAllocatedBytes() : -1;
+	}
+
+	/** Begin measuring `phase' (ending the current phase, if any). */
+	public void begin(String phase) {
+		end();
+		this.event = new RefactoringPhaseEvent();
+		this.event.begin();
+		this.phase     = phase;
+		this.cpu       = getCpuTime();
+		this.allocated = getAllocated();
+		this.wall      = System.nanoTime();
+	}
+
+	/** End measuring the current phase (if any). */
+	public void end() {
+		if (this.phase == null) {
+			return;
+		}
+		long wall      = System.nanoTime() - this.wall;
+		long cpu       = isCpuTime   ? getCpuTime()   - this.cpu       : -1;
+		long allocated = isAllocated ? getAllocated() - this.allocated : -1;
+		this.phases.add(new Phase(this.phase, wall, cpu, allocated));
+
+		this.event.end();
+		if (this.event.shouldCommit()) {
+			this.event.id        = this.id;
+			this.event.phase     = this.phase;
+			this.event.cpuTime   = cpu;
+			this.event.allocated = allocated;
+			this.event.commit();
+		}
+		this.event = null;
+		this.phase = null;
+	}
+
+	/** Set outcome (one of the `OUTCOME_' constants), ending the current phase. */
+	public void setOutcome(String outcome) {
+		end();
+		this.outcome = outcome;
+	}
+
+	public String getID() {
+		return this.id;
+	}
+
+	public String getOutcome() {
+		return this.outcome;
+	}
+
+	/** Return number of measured phases. */
+	public int size() {
+		return this.phases.size();
+	}
+
+	public JsonObject toJson() {
+		long             wall      = 0;
+		long             cpu       = isCpuTime   ? 0 : -1;
+		long             allocated = isAllocated ? 0 : -1;
+		JsonArrayBuilder phases    = Json.createArrayBuilder();
+		for (Phase p : this.phases) {
+			wall += p.wall;
+			if (isCpuTime) {
+				cpu += p.cpu;
+			}
+			if (isAllocated) {
+				allocated += p.allocated;
+			}
+			phases.add(Json.createObjectBuilder()
+				.add("phase",     p.name)
+				.add("wall",      p.wall)
+				.add("cpu",       p.cpu)
+				.add("allocated", p.allocated));
+		}
+		return Json.createObjectBuilder()
+			.add("id",         this.id)
+			.add("outcome",    this.outcome)
+			.add("descriptor", this.descriptor)
+			.add("wall",       wall)
+			.add("cpu",        cpu)
+			.add("allocated",  allocated)
+			.add("phases",     phases)
+			.build();
+	}
+}
@@ -0,0 +1,36 @@
+package org.alfine.refactoring.processors;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/** JFR event of one phase of applying a refactoring (see `RefactoringMetrics').
+ *
+ *  Recorded while a recording is running (e.g., with
+ *  `-XX:StartFlightRecording'), and can be disabled in its settings by name. */
+@Name("org.alfine.refactoring.RefactoringPhase")
+@Label("Refactoring Phase")
+@Category("Refactoring")
+@Description("Phase of applying a refactoring descriptor")
+@StackTrace(false)
+class RefactoringPhaseEvent extends Event {
+
+	@Label("Refactoring ID")
+	String id;
+
+	@Label("Phase")
+	String phase;
+
+	@Label("CPU Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long cpuTime;
+
+	@Label("Allocated")
+	@DataAmount
+	long allocated;
+}
@@ -0,0 +1,107 @@
+package org.alfine.refactoring.processors;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+import jakarta.json.JsonValue;
+
+/** Result of applying one refactoring descriptor (see `Processor.refactor').
+ *
+ *  `toJson' returns the record written by `ResultSink':
+ *
+ *    {"id":..., "success":..., "outcome":..., "descriptor":...,
+ *     "status":[{"phase":..., "severity":..., "code":..., "message":...}, ...],
+ *     "changed":[<workspace path>, ...],
+ *     "wall":..., "cpu":..., "allocated":..., "phases":[...]}
+ *
+ *  Status entries are those of the preflight checks, of the descriptor and
+ *  context validation and of the initial and final condition checks (see
+ *  `RefactoringMetrics' for phases, outcomes and timings). */
+public class RefactoringResult {
+
+	private static class Status {
+		private final String phase;
+		private final String severity;
+		private final int    code;
+		private final String message;
+
+		private Status(String phase, String severity, int code, String message) {
+			this.phase    = phase;
+			this.severity = severity;
+			this.code     = code;
+			this.message  = message;
+		}
+	}
+
+	private final RefactoringMetrics metrics;
+	private final List<Status>       status  = new ArrayList<>();
+	private final Set<String>        changed = new LinkedHashSet<>();
+	private       boolean            success;
+
+	public RefactoringResult(String id, String descriptor) {
+		this.metrics = new RefactoringMetrics(id, descriptor);
+	}
+
+	public RefactoringMetrics getMetrics() {
+		return this.metrics;
+	}
+
+	public String getID() {
+		return this.metrics.getID();
+	}
+
+	public boolean isSuccess() {
+		return this.success;
+	}
+
+	public void setSuccess(boolean success) {
+		this.success = success;
+	}
+
+	/** Add status entry reported in `phase' (one of the `RefactoringMetrics.PHASE_' constants). */
+	public void addStatus(String phase, String severity, int code, String message) {
+		this.status.add(new Status(phase, severity, code, String.valueOf(message)));
+	}
+
+	/** Add file changed by the refactoring (workspace path). */
+	public void addChanged(String path) {
+		this.changed.add(path);
+	}
+
+	public Set<String> getChanged() {
+		return this.changed;
+	}
+
+	public JsonObject toJson() {
+		JsonArrayBuilder status = Json.createArrayBuilder();
+		for (Status s : this.status) {
+			status.add(Json.createObjectBuilder()
+				.add("phase",    s.phase)
+				.add("severity", s.severity)
+				.add("code",     s.code)
+				.add("message",  s.message));
+		}
+		JsonObject        metrics = this.metrics.toJson();
+		JsonObjectBuilder record  = Json.createObjectBuilder()
+			.add("id",         metrics.get("id"))
+			.add("success",    this.success)
+			.add("outcome",    metrics.get("outcome"))
+			.add("descriptor", metrics.get("descriptor"))
+			.add("status",     status)
+			.add("changed",    Json.createArrayBuilder(this.changed));
+		for (Map.Entry<String, JsonValue> entry : metrics.entrySet()) {
+			switch (entry.getKey()) {
+				case "id", "outcome", "descriptor": break;
+				default: record.add(entry.getKey(), entry.getValue());
+			}
+		}
+		return record.build();
+	}
+}
@@ -0,0 +1,102 @@
+package org.alfine.refactoring.processors;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+
+/** Appends one `RefactoringResult' record per descriptor to `refactoring-results.jsonl'.
+ *
+ *  The file is opened once (on the first record) and kept open until `close()'.
+ *  Each record is flushed when written, so that readers can follow the file
+ *  during long batch runs, but forced to disk (fsync) at most once per
+ *  `syncInterval' milliseconds (0 to force every record), and on `close()'. */
+public class ResultSink implements AutoCloseable {
+
+	public static final String RESULTS_FILE          = "refactoring-results.jsonl";
+	public static final long   DEFAULT_SYNC_INTERVAL = 10000;
+
+	private final Path           location;
+	private final long           syncInterval;
+	private       FileChannel    channel;
+	private       BufferedWriter out;
+	private       long           lastSync;
+	private       int            count;
+
+	/** Create sink in the specified folder (e.g., `report'). */
+	public ResultSink(Path location) {
+		this(location, DEFAULT_SYNC_INTERVAL);
+	}
+
+	public ResultSink(Path location, long syncInterval) {
+		this.location     = location;
+		this.syncInterval = syncInterval;
+	}
+
+	/** Return path of the results file. */
+	public Path getFile() {
+		return this.location.resolve(RESULTS_FILE);
+	}
+
+	public synchronized void write(RefactoringResult result) {
+		write(result.toJson());
+	}
+
+	/** Write result of the descriptor at `index' of a batch. */
+	public synchronized void write(int index, RefactoringResult result) {
+		write(Json.createObjectBuilder().add("index", index).addAll(Json.createObjectBuilder(result.toJson())).build());
+	}
+
+	private void write(JsonObject record) {
+		try {
+			if (this.out == null) {
+				Files.createDirectories(this.location);
+				this.channel  = FileChannel.open(getFile(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+				this.out      = new BufferedWriter(Channels.newWriter(this.channel, StandardCharsets.UTF_8), 1 << 16);
+				this.lastSync = System.currentTimeMillis();
+			}
+			this.out.write(record.toString());
+			this.out.newLine();
+			this.out.flush();
+			++this.count;
+
+			long now = System.currentTimeMillis();
+			if (now - this.lastSync >= this.syncInterval) {
+				this.channel.force(false);
+				this.lastSync = now;
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/** Return number of records written. */
+	public synchronized int size() {
+		return this.count;
+	}
+
+	/** Force written records to disk and close the file. */
+	@Override
+	public synchronized void close() {
+		if (this.out == null) {
+			return;
+		}
+		try {
+			this.out.flush();
+			this.channel.force(false);
+			this.out.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			this.out     = null;
+			this.channel = null;
+		}
+	}
+}
@@ -1,33 +1,48 @@
 package org.alfine.refactoring.suppliers;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
-import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
+import org.alfine.utils.FingerprintSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /** This class reflects the contents of a cache folder
- *  whose path is determined at application start-up. */
+ *  whose path is determined at application start-up.
+ *
+ *  Opportunities are stored either as text (`descriptors.txt' per context
+ *  path) or in a single indexed segment file (see `SegmentCacheWriter'). */
 public final class Cache {
 
+	public static final String FORMAT_TEXT    = "text";
+	public static final String FORMAT_SEGMENT = "segment";
+
 	private static final Map<String, String> cachePathMap =
 		new HashMap<String, String>();
 
-	private Path location;
+	private Path   location;
+	private String format;
 
 	/** Create cache (user must clear by deleting cache folder manually).*/
 	public Cache(Path location) {
+		this(location, FORMAT_TEXT);
+	}
+
+	/** Create cache using the specified format (`text' or `segment'). */
+	public Cache(Path location, String format) {
+
+		if (!FORMAT_TEXT.equals(format) && !FORMAT_SEGMENT.equals(format)) {
+			throw new RuntimeException("Unknown cache format: `" + format + "`.");
+		}
 
 		this.location = location;
+		this.format   = format;
 		
 		if (!Files.exists(location)) {
 			try {
@@ -58,6 +73,10 @@ public final class Cache {
 
 	/** Return lazily populated cache line stream associated with specified ID. */
 	public Stream<String> getCacheLines(String refactoringID) {
+		flush();
+		if (FORMAT_SEGMENT.equals(this.format)) {
+			return getSegment().getDescriptors(refactoringID).map(RefactoringDescriptor::getCacheLine);
+		}
 		// Duplicate. See IOUtils.
 		Path path = getCacheFilePath(refactoringID);
 		try {
@@ -77,39 +96,78 @@ public final class Cache {
 		return fn.apply(this);
 	}
 
-	private final Set<String> opportunities = new HashSet<>();
+	/** Return reader of the segment file (segment format only). */
+	public synchronized SegmentCacheReader getSegment() {
+		if (this.reader == null) {
+			try {
+				this.reader = new SegmentCacheReader(this.location.resolve(SegmentCacheWriter.FILE));
+			} catch (IOException e) {
+				throw new RuntimeException("Failed to open cache segment in " + this.location, e);
+			}
+		}
+		return this.reader;
+	}
+
+	/* Fingerprints (128-bit) of written cache lines. */
+	private final FingerprintSet     opportunities = new FingerprintSet(1 << 16);
+	private final CacheWriter        writer        = new CacheWriter();
+	private       SegmentCacheWriter segment;
+	private       SegmentCacheReader reader;
 
-	public void write(RefactoringOpportunityContext context, RefactoringDescriptor descriptor) {
-		// TODO: Use IOUtils.appendLineToFile(...) instead of `write`.
-		// write(getCacheFilePath(descriptor.getRefactoringID()), descriptor.getCacheLine());
-		if (opportunities.contains(descriptor.getCacheLine())) {
+	/** Write opportunity to cache. (Safe for concurrent writers.) */
+	public synchronized void write(RefactoringOpportunityContext context, RefactoringDescriptor descriptor) {
+		write(context.getContextPath(), descriptor.freeze(), descriptor.getCacheLine());
+	}
+
+	/** Write buffered opportunities to cache in buffer order. (Safe for concurrent writers.) */
+	public synchronized void write(OpportunityBuffer buffer) {
+		for (OpportunityBuffer.Entry entry : buffer.getEntries()) {
+			write(entry.getContextPath(), entry.getDescriptor(), entry.getLine());
+		}
+	}
+
+	private void write(Path contextPath, RefactoringDescriptor descriptor, String line) {
+		if (!opportunities.add(descriptor.getHash1(), descriptor.getHash2())) {
 			// Some visiting patterns produce duplicates.
 			// For example, when a field is accessed multiple times in the same method body.
 			return; // Opportunity already exists.
 		}
-		opportunities.add(descriptor.getCacheLine());
-		Path descriptors = this.location.resolve(context.getContextPath()).resolve("descriptors.txt");
-		write(descriptors, descriptor.getCacheLine());
+		if (FORMAT_SEGMENT.equals(this.format)) {
+			try {
+				openSegment().write(contextPath, descriptor);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		} else {
+			Path descriptors = this.location.resolve(contextPath).resolve("descriptors.txt");
+			this.writer.write(descriptors, line);
+		}
 	}
 
-	/** Write opportunity to cache. */
-	private static void write(Path path, String line) {
-		// Duplicate. See IOUtils.appendLineToFile.
-		if (!Files.exists(path)) {
+	private SegmentCacheWriter openSegment() throws IOException {
+		if (this.segment == null) {
+			this.segment = new SegmentCacheWriter(this.location);
+			this.reader  = null;
+		}
+		return this.segment;
+	}
+
+	/** Write buffered cache lines to disk and release open files. */
+	public synchronized void flush() {
+		this.writer.flush();
+	}
+
+	/** Flush and, for the segment format, complete the segment file (dictionary, index, footer). */
+	public synchronized void close() {
+		flush();
+		if (FORMAT_SEGMENT.equals(this.format)) {
 			try {
-				Files.createDirectories(path.getParent());
-			} catch (Exception e) {
+				openSegment().close();
+			} catch (IOException e) {
 				e.printStackTrace();
+			} finally {
+				this.segment = null;
 			}
 		}
-		try (BufferedWriter bw =
-				Files.newBufferedWriter(
-					path,
-					java.nio.file.StandardOpenOption.CREATE,
-					java.nio.file.StandardOpenOption.APPEND)) {
-			bw.write(line + System.getProperty("line.separator"));
-		} catch (Exception e) {
-			e.printStackTrace();			
-		}
 	}
 }
@@ -0,0 +1,134 @@
+package org.alfine.refactoring.suppliers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Appends lines to cache files (`descriptors.txt') through a bounded set of open channels.
+ *
+ *  Lines are buffered per file and written when the buffer of a file reaches
+ *  `flushSize' bytes, when the total amount of buffered data reaches `maxPending'
+ *  bytes, or on `flush()'. At most `maxOpen' channels are kept open; the least
+ *  recently used channel is closed when another one must be opened. */
+public class CacheWriter implements AutoCloseable {
+
+	public static final int DEFAULT_MAX_OPEN    = 64;
+	public static final int DEFAULT_FLUSH_SIZE  = 64 * 1024;
+	public static final int DEFAULT_MAX_PENDING = 8 * 1024 * 1024;
+
+	private static final String NEWLINE = System.getProperty("line.separator");
+
+	private final int maxOpen;
+	private final int flushSize;
+	private final int maxPending;
+
+	private final Map<Path, StringBuilder> buffers = new HashMap<>();
+	private final Map<Path, FileChannel>   channels;
+	private       long                     pending;
+
+	public CacheWriter() {
+		this(DEFAULT_MAX_OPEN, DEFAULT_FLUSH_SIZE, DEFAULT_MAX_PENDING);
+	}
+
+	public CacheWriter(int maxOpen, int flushSize, int maxPending) {
+		this.maxOpen    = maxOpen;
+		this.flushSize  = flushSize;
+		this.maxPending = maxPending;
+		this.channels   = new LinkedHashMap<Path, FileChannel>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Path, FileChannel> eldest) {
+				if (size() > CacheWriter.this.maxOpen) {
+					closeChannel(eldest.getValue());
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/** Append `line' (and a line separator) to the file at `path'. */
+	public void write(Path path, String line) {
+		StringBuilder buffer = buffers.computeIfAbsent(path, p -> new StringBuilder());
+		buffer.append(line).append(NEWLINE);
+		pending += line.length() + NEWLINE.length();
+
+		if (buffer.length() >= flushSize) {
+			flush(path);
+		} else if (pending >= maxPending) {
+			flush();
+		}
+	}
+
+	/** Write all buffered lines and close all channels. */
+	public void flush() {
+		for (Path path : buffers.keySet()) {
+			writeBuffer(path, buffers.get(path));
+		}
+		buffers.clear();
+		pending = 0;
+		for (FileChannel channel : channels.values()) {
+			closeChannel(channel);
+		}
+		channels.clear();
+	}
+
+	@Override
+	public void close() {
+		flush();
+	}
+
+	private void flush(Path path) {
+		StringBuilder buffer = buffers.remove(path);
+		if (buffer != null) {
+			pending -= buffer.length();
+			writeBuffer(path, buffer);
+		}
+	}
+
+	private void writeBuffer(Path path, StringBuilder buffer) {
+		if (buffer.length() == 0) {
+			return;
+		}
+		try {
+			FileChannel channel = getChannel(path);
+			ByteBuffer  bytes   = ByteBuffer.wrap(buffer.toString().getBytes(StandardCharsets.UTF_8));
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private FileChannel getChannel(Path path) throws IOException {
+		FileChannel channel = channels.get(path);
+		if (channel == null) {
+			if (!Files.exists(path.getParent())) {
+				Files.createDirectories(path.getParent());
+			}
+			channel = FileChannel.open(
+				path,
+				StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND);
+			channels.put(path, channel);
+		}
+		return channel;
+	}
+
+	private static void closeChannel(FileChannel channel) {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package org.alfine.refactoring.suppliers;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.compiler.IProblem;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObjectBuilder;
+
+/** Collects compile errors of parsed units into a report under the cache folder.
+ *
+ *  `compile-problems.jsonl' gets one record per unit with errors (it is
+ *  truncated when the report is created, so it only has errors of this run):
+ *      {"project":..,"unit":..,"problems":[{"id":..,"line":..,"message":..}, ..]}
+ *
+ *  `compile-problems-summary.json' gets per-project counts on `close()':
+ *      {"<project>":{"units":..,"unitsWithErrors":..,"errors":..}, ..}
+ *  where `units' is the number of units parsed (units from the unit cache
+ *  are not parsed) and `unitsWithErrors' the number of those with errors.
+ *
+ *  If a threshold is set (>= 0), `add' throws once the total number of
+ *  errors exceeds the threshold, to fail fast on broken workspaces. */
+public class CompileProblemReport implements AutoCloseable {
+
+	public static final String REPORT_FILE  = "compile-problems.jsonl";
+	public static final String SUMMARY_FILE = "compile-problems-summary.json";
+
+	private static final Logger logger = LoggerFactory.getLogger(CompileProblemReport.class);
+
+	private static class Count {
+		private int units;
+		private int unitsWithErrors;
+		private int errors;
+	}
+
+	private final Path               location;
+	private final int                maxErrors;
+	private final Map<String, Count> counts = new TreeMap<>();
+	private       BufferedWriter     out;
+	private       int                totalErrors;
+
+	/** Create report in the specified folder; `maxErrors' < 0 disables fail-fast. */
+	public CompileProblemReport(Path location, int maxErrors) {
+		this.location  = location;
+		this.maxErrors = maxErrors;
+		try {
+			Files.createDirectories(location);
+			this.out = Files.newBufferedWriter(
+				location.resolve(REPORT_FILE),
+				StandardCharsets.UTF_8,
+				StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/** Record errors of `cu' (if any). (Safe for concurrent callers.) */
+	public synchronized void add(ICompilationUnit unit, CompilationUnit cu) {
+		String project = unit.getJavaProject().getElementName();
+		Count  count   = counts.computeIfAbsent(project, k -> new Count());
+		count.units += 1;
+
+		IProblem[] problems = cu.getProblems();
+		if (problems == null || problems.length == 0) {
+			return;
+		}
+
+		JsonArrayBuilder array  = Json.createArrayBuilder();
+		int              errors = 0;
+		for (IProblem problem : problems) {
+			if (problem.isError()) {
+				logger.warn("Compilation problem: {}", problem);
+				array.add(Json.createObjectBuilder()
+					.add("id"     , problem.getID())
+					.add("line"   , problem.getSourceLineNumber())
+					.add("message", String.valueOf(problem.getMessage())));
+				++errors;
+			}
+		}
+		if (errors == 0) {
+			return;
+		}
+
+		count.unitsWithErrors += 1;
+		count.errors          += errors;
+		totalErrors           += errors;
+
+		JsonObjectBuilder record = Json.createObjectBuilder()
+			.add("project" , project)
+			.add("unit"    , unit.getHandleIdentifier())
+			.add("problems", array);
+		try {
+			if (out != null) {
+				out.write(record.build().toString());
+				out.newLine();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+
+		if (maxErrors >= 0 && totalErrors > maxErrors) {
+			throw new RuntimeException(
+				"Too many compile errors (" + totalErrors + " > " + maxErrors + "). See " + location.resolve(REPORT_FILE)
+			);
+		}
+	}
+
+	/** Return total number of errors recorded so far. */
+	public synchronized int getTotalErrors() {
+		return this.totalErrors;
+	}
+
+	/** Flush report and write per-project summary. */
+	@Override
+	public synchronized void close() {
+		JsonObjectBuilder summary = Json.createObjectBuilder();
+		for (Map.Entry<String, Count> entry : counts.entrySet()) {
+			summary.add(entry.getKey(), Json.createObjectBuilder()
+				.add("units"          , entry.getValue().units)
+				.add("unitsWithErrors", entry.getValue().unitsWithErrors)
+				.add("errors"         , entry.getValue().errors));
+			logger.info(
+				"Compile problems: project = {}, units = {}, units with errors = {}, errors = {}",
+				entry.getKey(), entry.getValue().units, entry.getValue().unitsWithErrors, entry.getValue().errors
+			);
+		}
+		try {
+			if (out != null) {
+				out.close();
+				out = null;
+			}
+			Files.createDirectories(location);
+			Files.writeString(location.resolve(SUMMARY_FILE), summary.build().toString(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
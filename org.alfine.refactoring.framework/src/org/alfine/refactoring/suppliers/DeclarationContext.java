@@ -0,0 +1,121 @@
+package org.alfine.refactoring.suppliers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.alfine.refactoring.utils.ASTHelper;
+import org.alfine.utils.DigestUtil;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+
+/** Compilation unit, type or method declaration enclosing visited nodes.
+ *
+ *  Names are computed once per declaration: the qualified name (as
+ *  `ASTHelper.getFullyQualifiedName'), the method signature, and the parts
+ *  of the declaration context (as `ASTHelper.getDeclarationContext') joined
+ *  into the context path. `HotMethodVisitor' enters and leaves declarations
+ *  while visiting, so that opportunity contexts are created without walking
+ *  the AST or computing digests again. */
+public final class DeclarationContext {
+
+	private static final DeclarationContext EMPTY = new DeclarationContext(null, Collections.emptyList(), "", null, false);
+
+	private final DeclarationContext parent;
+	private final List<String>       parts;         /* Package, type and `<method>-<md5 of parameters>' names. */
+	private final String             path;          /* Parts joined by `/'. */
+	private final String             qualifiedName; /* Package, type and method names joined by `.'. */
+	private final String             signature;     /* Method signature (see `ASTHelper.getMethodSignature'), or null. */
+	private final boolean            typeOrMethod;
+
+	private DeclarationContext(DeclarationContext parent, List<String> parts, String qualifiedName, String signature, boolean typeOrMethod) {
+		this.parent        = parent;
+		this.parts         = parts;
+		this.path          = String.join("/", parts);
+		this.qualifiedName = qualifiedName;
+		this.signature     = signature;
+		this.typeOrMethod  = typeOrMethod;
+	}
+
+	/** Return context of a compilation unit. */
+	public static DeclarationContext of(CompilationUnit unit) {
+		String pkg = unit.getPackage() != null ? unit.getPackage().getName().getFullyQualifiedName() : "";
+		return new DeclarationContext(EMPTY, List.of(pkg), pkg, null, false);
+	}
+
+	/** Return context of the declarations enclosing `node' (and of `node', if it is a declaration). */
+	public static DeclarationContext of(ASTNode node) {
+		if (node == null) {
+			return EMPTY;
+		} else if (node instanceof CompilationUnit unit) {
+			return of(unit);
+		}
+		DeclarationContext context = of(node.getParent());
+		return isDeclaration(node) ? context.enter(node) : context;
+	}
+
+	/** Return true if `node' is a type or method declaration (i.e., can be entered). */
+	public static boolean isDeclaration(ASTNode node) {
+		return node instanceof TypeDeclaration || node instanceof MethodDeclaration;
+	}
+
+	/** Return context of the type or method `node' declared in this context. */
+	public DeclarationContext enter(ASTNode node) {
+		String name;
+		String part;
+		String signature = null;
+		if (node instanceof TypeDeclaration type) {
+			name = part = type.getName().getFullyQualifiedName();
+		} else if (node instanceof MethodDeclaration method) {
+			String params = ASTHelper.getMethodSignatureParams(method);
+			name = method.getName().getFullyQualifiedName();
+			part = name + "-" + DigestUtil.contextHash(params);
+			signature = qualify(name) + params;
+		} else {
+			throw new RuntimeException("Not a type or method declaration: " + node.getClass().getSimpleName());
+		}
+		List<String> parts = new ArrayList<>(this.parts.size() + 1);
+		parts.addAll(this.parts);
+		parts.add(part);
+		return new DeclarationContext(this, Collections.unmodifiableList(parts), qualify(name), signature, true);
+	}
+
+	private String qualify(String name) {
+		return this.qualifiedName.isEmpty() ? name : this.qualifiedName + "." + name;
+	}
+
+	/** Return enclosing context (the empty context for compilation units). */
+	public DeclarationContext getParent() {
+		return this.parent;
+	}
+
+	/** Return true if this is the context of a type or method (rather than of a compilation unit). */
+	public boolean isTypeOrMethod() {
+		return this.typeOrMethod;
+	}
+
+	public List<String> getParts() {
+		return this.parts;
+	}
+
+	/** Return parts joined by `/'. */
+	public String getPath() {
+		return this.path;
+	}
+
+	/** Return path of the enclosing context (i.e., without the innermost declaration). */
+	public String getParentPath() {
+		return this.parent != null ? this.parent.path : "";
+	}
+
+	public String getQualifiedName() {
+		return this.qualifiedName;
+	}
+
+	/** Return signature on the format of `methods.config' if this is a method context, null otherwise. */
+	public String getSignature() {
+		return this.signature;
+	}
+}
@@ -0,0 +1,235 @@
+package org.alfine.refactoring.suppliers;
+
+import java.io.StringReader;
+import java.util.Map;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+
+/** Streaming encoder and decoder of descriptor cache lines.
+ *
+ *  A cache line has the fixed shape {"args":{..},"meta":{..}} with string
+ *  values only. The encoder produces exactly what jakarta.json (parsson)
+ *  produces for such an object, so cache lines written by either are
+ *  interchangeable. The decoder handles the fixed shape directly and falls
+ *  back to jakarta.json for anything else (e.g., non-string values). */
+public final class DescriptorCodec {
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private DescriptorCodec() {} // Static class.
+
+	/** Return cache line of the specified maps (entries in map iteration order). */
+	public static String encode(Map<String, String> args, Map<String, String> meta) {
+		StringBuilder out = new StringBuilder(64 + 48 * (args.size() + meta.size()));
+		out.append("{\"args\":");
+		encode(out, args);
+		out.append(",\"meta\":");
+		encode(out, meta);
+		out.append('}');
+		return out.toString();
+	}
+
+	/** Decode `line' into `args' and `meta'. */
+	public static void decode(String line, Map<String, String> args, Map<String, String> meta) {
+		try {
+			new Decoder(line).decode(args, meta);
+		} catch (IllegalArgumentException e) {
+			args.clear();
+			meta.clear();
+			decodeFallback(line, args, meta);
+		}
+	}
+
+	private static void encode(StringBuilder out, Map<String, String> map) {
+		out.append('{');
+		boolean first = true;
+		for (Map.Entry<String, String> entry : map.entrySet()) {
+			if (!first) {
+				out.append(',');
+			}
+			first = false;
+			encode(out, entry.getKey());
+			out.append(':');
+			encode(out, entry.getValue());
+		}
+		out.append('}');
+	}
+
+	/** Append quoted and escaped `s' (same escapes as parsson). */
+	private static void encode(StringBuilder out, String s) {
+		out.append('"');
+		int start = 0;
+		int n     = s.length();
+		for (int i = 0; i < n; ++i) {
+			char c = s.charAt(i);
+			if (c >= 0x20 && c != '"' && c != '\\') {
+				continue;
+			}
+			out.append(s, start, i);
+			start = i + 1;
+			switch (c) {
+			case '"' : out.append("\\\""); break;
+			case '\\': out.append("\\\\"); break;
+			case '\b': out.append("\\b");  break;
+			case '\f': out.append("\\f");  break;
+			case '\n': out.append("\\n");  break;
+			case '\r': out.append("\\r");  break;
+			case '\t': out.append("\\t");  break;
+			default:
+				out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xf]);
+			}
+		}
+		out.append(s, start, n);
+		out.append('"');
+	}
+
+	private static void decodeFallback(String line, Map<String, String> args, Map<String, String> meta) {
+		try (JsonReader reader = Json.createReader(new StringReader(line))) {
+			JsonObject object = reader.readObject();
+			copy(object.getJsonObject("args"), args);
+			copy(object.getJsonObject("meta"), meta);
+		}
+	}
+
+	private static void copy(JsonObject object, Map<String, String> map) {
+		for (Map.Entry<String, JsonValue> entry : object.entrySet()) {
+			map.put(entry.getKey(), ((JsonString)entry.getValue()).getString());
+		}
+	}
+
+	/** Recursive descent parser of {"args":{..},"meta":{..}} (members in any order). */
+	private static class Decoder {
+
+		private final String        s;
+		private       int           pos;
+		private final StringBuilder buffer = new StringBuilder();
+
+		private Decoder(String s) {
+			this.s = s;
+		}
+
+		private void decode(Map<String, String> args, Map<String, String> meta) {
+			boolean hasArgs = false;
+			boolean hasMeta = false;
+
+			expect('{');
+			if (!peek('}')) {
+				do {
+					String key = readString();
+					expect(':');
+					if (key.equals("args") && !hasArgs) {
+						readObject(args);
+						hasArgs = true;
+					} else if (key.equals("meta") && !hasMeta) {
+						readObject(meta);
+						hasMeta = true;
+					} else {
+						throw new IllegalArgumentException("Unexpected member: " + key);
+					}
+				} while (accept(','));
+			}
+			expect('}');
+			skipWhitespace();
+			if (pos != s.length() || !hasArgs || !hasMeta) {
+				throw new IllegalArgumentException("Unexpected descriptor shape.");
+			}
+		}
+
+		private void readObject(Map<String, String> map) {
+			expect('{');
+			if (!peek('}')) {
+				do {
+					String key = readString();
+					expect(':');
+					map.put(key, readString());
+				} while (accept(','));
+			}
+			expect('}');
+		}
+
+		private String readString() {
+			expect('"');
+			int start = pos;
+			// Fast path: no escapes.
+			while (pos < s.length()) {
+				char c = s.charAt(pos);
+				if (c == '"') {
+					return s.substring(start, pos++);
+				} else if (c == '\\') {
+					break;
+				} else if (c < 0x20) {
+					throw new IllegalArgumentException("Control character in string.");
+				}
+				++pos;
+			}
+			buffer.setLength(0);
+			buffer.append(s, start, pos);
+			while (pos < s.length()) {
+				char c = s.charAt(pos++);
+				if (c == '"') {
+					return buffer.toString();
+				} else if (c != '\\') {
+					if (c < 0x20) {
+						throw new IllegalArgumentException("Control character in string.");
+					}
+					buffer.append(c);
+				} else if (pos < s.length()) {
+					char e = s.charAt(pos++);
+					switch (e) {
+					case '"' : buffer.append('"');  break;
+					case '\\': buffer.append('\\'); break;
+					case '/' : buffer.append('/');  break;
+					case 'b' : buffer.append('\b'); break;
+					case 'f' : buffer.append('\f'); break;
+					case 'n' : buffer.append('\n'); break;
+					case 'r' : buffer.append('\r'); break;
+					case 't' : buffer.append('\t'); break;
+					case 'u' :
+						if (pos + 4 > s.length()) {
+							throw new IllegalArgumentException("Truncated escape.");
+						}
+						buffer.append((char)Integer.parseInt(s, pos, pos + 4, 16));
+						pos += 4;
+						break;
+					default:
+						throw new IllegalArgumentException("Invalid escape: " + e);
+					}
+				}
+			}
+			throw new IllegalArgumentException("Unterminated string.");
+		}
+
+		private void skipWhitespace() {
+			while (pos < s.length()) {
+				char c = s.charAt(pos);
+				if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+					return;
+				}
+				++pos;
+			}
+		}
+
+		private boolean peek(char c) {
+			skipWhitespace();
+			return pos < s.length() && s.charAt(pos) == c;
+		}
+
+		private boolean accept(char c) {
+			if (peek(c)) {
+				++pos;
+				return true;
+			}
+			return false;
+		}
+
+		private void expect(char c) {
+			if (!accept(c)) {
+				throw new IllegalArgumentException("Expected `" + c + "' at " + pos);
+			}
+		}
+	}
+}
@@ -2,20 +2,22 @@ package org.alfine.refactoring.suppliers;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
 
-import org.alfine.refactoring.utils.ASTHelper;
 import org.eclipse.jdt.core.dom.ASTNode;
 
 public class ExtractConstantFieldContext extends RefactoringOpportunityContext {
-	private final List<String> declContext;
+	private final DeclarationContext declContext;
 
 	public ExtractConstantFieldContext(ASTNode node) {
-		this.declContext = ASTHelper.getDeclarationContext(node);
+		this(DeclarationContext.of(node));
+	}
+
+	public ExtractConstantFieldContext(DeclarationContext declContext) {
+		this.declContext = declContext;
 	}
 
 	@Override
 	public Path getContextPath() {
-		return Paths.get("x-constant", String.join("/", this.declContext));
+		return Paths.get("x-constant", this.declContext.getPath());
 	}
 }
@@ -0,0 +1,238 @@
+package org.alfine.refactoring.suppliers;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.AnonymousClassDeclaration;
+import org.eclipse.jdt.core.dom.Block;
+import org.eclipse.jdt.core.dom.BreakStatement;
+import org.eclipse.jdt.core.dom.ConstructorInvocation;
+import org.eclipse.jdt.core.dom.ContinueStatement;
+import org.eclipse.jdt.core.dom.DoStatement;
+import org.eclipse.jdt.core.dom.EnhancedForStatement;
+import org.eclipse.jdt.core.dom.ForStatement;
+import org.eclipse.jdt.core.dom.IfStatement;
+import org.eclipse.jdt.core.dom.LabeledStatement;
+import org.eclipse.jdt.core.dom.LambdaExpression;
+import org.eclipse.jdt.core.dom.ReturnStatement;
+import org.eclipse.jdt.core.dom.Statement;
+import org.eclipse.jdt.core.dom.SuperConstructorInvocation;
+import org.eclipse.jdt.core.dom.SwitchExpression;
+import org.eclipse.jdt.core.dom.SwitchStatement;
+import org.eclipse.jdt.core.dom.SynchronizedStatement;
+import org.eclipse.jdt.core.dom.ThrowStatement;
+import org.eclipse.jdt.core.dom.TryStatement;
+import org.eclipse.jdt.core.dom.TypeDeclarationStatement;
+import org.eclipse.jdt.core.dom.WhileStatement;
+import org.eclipse.jdt.core.dom.YieldStatement;
+
+/** Enumerates statement ranges of a block to extract as methods.
+ *
+ *  Ranges are enumerated by start (every `stride' statements) and length
+ *  (at most `maxLength' statements, 0 for no limit). The `ranges' strategies
+ *  (comma separated) restrict them further:
+ *
+ *    all      : every range (default)
+ *    aligned  : ranges that start and end at the block boundaries or next to
+ *               a compound statement (if, loop, try, switch, ...)
+ *    loops    : ranges that contain a loop
+ *
+ *  Ranges that extract method would reject are never enumerated: ranges with
+ *  `break', `continue' or `yield' statements whose target is outside the
+ *  range, with `this(..)' or `super(..)' calls, or with `return' statements
+ *  unless the last statement always returns (or throws). Since ranges consist
+ *  of whole statements of a block, they never contain part of a `try' or
+ *  `switch'. */
+public class ExtractMethodEnumerator {
+
+	public static final String RANGES_ALL     = "all";
+	public static final String RANGES_ALIGNED = "aligned";
+	public static final String RANGES_LOOPS   = "loops";
+
+	/** Receives enumerated ranges (indices of the first and last statement). */
+	public interface RangeConsumer {
+		void accept(int start, int end);
+	}
+
+	/** Properties of a statement (ignoring nested lambdas and classes). */
+	private static class Scan extends ASTVisitor {
+		private final Set<String> labels = new HashSet<>(); /* Labels declared within the statement. */
+		private       int         loops;                    /* Enclosing loops within the statement. */
+		private       int         switches;                 /* Enclosing switches within the statement. */
+		private       int         switchExpressions;        /* Enclosing switch expressions within the statement. */
+		private       boolean     escapes;                  /* A `break', `continue' or `yield' leaves the statement. */
+		private       boolean     illegal;                  /* Constructor invocation. */
+		private       boolean     returns;                  /* Contains a `return'. */
+		private       boolean     hasLoop;
+
+		@Override public boolean visit(LambdaExpression node)          { return false; }
+		@Override public boolean visit(AnonymousClassDeclaration node) { return false; }
+		@Override public boolean visit(TypeDeclarationStatement node)  { return false; }
+
+		@Override public boolean visit(ForStatement node)         { this.hasLoop = true; this.loops++; return true; }
+		@Override public boolean visit(EnhancedForStatement node) { this.hasLoop = true; this.loops++; return true; }
+		@Override public boolean visit(WhileStatement node)       { this.hasLoop = true; this.loops++; return true; }
+		@Override public boolean visit(DoStatement node)          { this.hasLoop = true; this.loops++; return true; }
+		@Override public boolean visit(SwitchStatement node)      { this.switches++; return true; }
+		@Override public boolean visit(SwitchExpression node)     { this.switchExpressions++; return true; }
+
+		@Override public void endVisit(ForStatement node)         { this.loops--; }
+		@Override public void endVisit(EnhancedForStatement node) { this.loops--; }
+		@Override public void endVisit(WhileStatement node)       { this.loops--; }
+		@Override public void endVisit(DoStatement node)          { this.loops--; }
+		@Override public void endVisit(SwitchStatement node)      { this.switches--; }
+		@Override public void endVisit(SwitchExpression node)     { this.switchExpressions--; }
+
+		@Override
+		public boolean visit(LabeledStatement node) {
+			this.labels.add(node.getLabel().getIdentifier());
+			return true;
+		}
+
+		@Override
+		public boolean visit(BreakStatement node) {
+			if (node.getLabel() != null ? !this.labels.contains(node.getLabel().getIdentifier()) : this.loops + this.switches == 0) {
+				this.escapes = true;
+			}
+			return false;
+		}
+
+		@Override
+		public boolean visit(ContinueStatement node) {
+			if (node.getLabel() != null ? !this.labels.contains(node.getLabel().getIdentifier()) : this.loops == 0) {
+				this.escapes = true;
+			}
+			return false;
+		}
+
+		@Override
+		public boolean visit(YieldStatement node) {
+			if (this.switchExpressions == 0) {
+				this.escapes = true;
+			}
+			return true; // The value may contain switch expressions.
+		}
+
+		@Override
+		public boolean visit(ReturnStatement node) {
+			this.returns = true;
+			return false;
+		}
+
+		@Override
+		public boolean visit(ConstructorInvocation node) {
+			this.illegal = true;
+			return false;
+		}
+
+		@Override
+		public boolean visit(SuperConstructorInvocation node) {
+			this.illegal = true;
+			return false;
+		}
+	}
+
+	private final int     maxLength;
+	private final int     stride;
+	private final boolean aligned;
+	private final boolean loops;
+
+	/** Create enumerator of all (legal) ranges. */
+	public ExtractMethodEnumerator() {
+		this(0, 1, RANGES_ALL);
+	}
+
+	public ExtractMethodEnumerator(int maxLength, int stride, String ranges) {
+		boolean aligned = false;
+		boolean loops   = false;
+		for (String s : ranges.split(",")) {
+			switch (s.trim()) {
+				case RANGES_ALL:     break;
+				case RANGES_ALIGNED: aligned = true; break;
+				case RANGES_LOOPS:   loops   = true; break;
+				default:
+					throw new RuntimeException("Unknown extract method ranges: `" + s + "' (expected `all', `aligned' or `loops').");
+			}
+		}
+		this.maxLength = Math.max(maxLength, 0);
+		this.stride    = Math.max(stride, 1);
+		this.aligned   = aligned;
+		this.loops     = loops;
+	}
+
+	/** Enumerate ranges of `statements' (of a block) by increasing start and end. */
+	public void enumerate(List<Statement> statements, RangeConsumer consumer) {
+		int       n       = statements.size();
+		boolean[] illegal = new boolean[n];     /* Statement can not be part of any range. */
+		boolean[] exits   = new boolean[n];     /* Statement always returns or throws. */
+		int[]     returns = new int[n + 1];     /* Prefix counts of statements with `return'. */
+		int[]     loops   = new int[n + 1];     /* Prefix counts of statements with loops. */
+		boolean[] cuts    = new boolean[n + 1]; /* Aligned range boundaries (before statement i). */
+
+		cuts[0] = cuts[n] = true;
+		for (int i = 0; i < n; ++i) {
+			Statement statement = statements.get(i);
+			Scan      scan      = new Scan();
+			statement.accept(scan);
+			illegal[i]     = scan.escapes || scan.illegal;
+			exits[i]       = isExit(statement);
+			returns[i + 1] = returns[i] + (scan.returns ? 1 : 0);
+			loops[i + 1]   = loops[i]   + (scan.hasLoop ? 1 : 0);
+			if (isCompound(statement)) {
+				cuts[i] = cuts[i + 1] = true;
+			}
+		}
+
+		for (int start = 0; start < n; start += this.stride) {
+			if (this.aligned && !cuts[start]) {
+				continue;
+			}
+			int last = this.maxLength > 0 ? Math.min(n - 1, start + this.maxLength - 1) : n - 1;
+			for (int end = start; end <= last && !illegal[end]; ++end) {
+				if (
+					(this.aligned && !cuts[end + 1]) ||
+					(this.loops && loops[end + 1] == loops[start]) ||
+					(returns[end + 1] != returns[start] && !exits[end])
+				) {
+					continue;
+				}
+				consumer.accept(start, end);
+			}
+		}
+	}
+
+	/** Return true if `statement' always completes by `return' or `throw'. */
+	@SuppressWarnings("unchecked")
+	private static boolean isExit(Statement statement) {
+		if (statement instanceof ReturnStatement || statement instanceof ThrowStatement) {
+			return true;
+		} else if (statement instanceof IfStatement s) {
+			return s.getElseStatement() != null && isExit(s.getThenStatement()) && isExit(s.getElseStatement());
+		} else if (statement instanceof Block b) {
+			List<Statement> statements = b.statements();
+			return !statements.isEmpty() && isExit(statements.get(statements.size() - 1));
+		}
+		return false;
+	}
+
+	private static boolean isCompound(Statement statement) {
+		return statement instanceof IfStatement
+			|| statement instanceof ForStatement
+			|| statement instanceof EnhancedForStatement
+			|| statement instanceof WhileStatement
+			|| statement instanceof DoStatement
+			|| statement instanceof TryStatement
+			|| statement instanceof SwitchStatement
+			|| statement instanceof SynchronizedStatement
+			|| statement instanceof LabeledStatement
+			|| statement instanceof Block;
+	}
+
+	/** Return canonical form of the settings (e.g., for cache keys). */
+	@Override
+	public String toString() {
+		return "max-length=" + this.maxLength + ",stride=" + this.stride + ",aligned=" + this.aligned + ",loops=" + this.loops;
+	}
+}
@@ -1,20 +1,37 @@
 package org.alfine.refactoring.suppliers;
 
+import java.io.IOException;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import org.alfine.refactoring.framework.Workspace;
+import org.alfine.refactoring.framework.launch.CommandLineArguments;
+import org.alfine.utils.DigestUtil;
 import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.compiler.IProblem;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTRequestor;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,47 +40,91 @@ public class HotMethodRefactoringFinder {
 
 	private static final Logger logger = LoggerFactory.getLogger(HotMethodRefactoringFinder.class);
 
-	public static CompilationUnit getCompilationUnit(ICompilationUnit unit) {
+	/** Return a parser configured to resolve bindings in the specified project (or the project of the source if null). */
+	public static ASTParser newParser(IJavaProject project) {
 		ASTParser parser = ASTParser.newParser(AST.JLS8);
 		parser.setKind(ASTParser.K_COMPILATION_UNIT);
-		parser.setSource(unit);
 		parser.setResolveBindings(true);
 		parser.setBindingsRecovery(true);
-		CompilationUnit cu = (CompilationUnit)parser.createAST(null);
+		if (project != null) {
+			parser.setProject(project);
+		}
+		return parser;
+	}
 
-		boolean hasErrors = false;
-	    IProblem[] problems = cu.getProblems();
-	    if (problems != null && problems.length > 0) {
-	        for (IProblem problem : problems) {
-	        	if (problem.isError()) {
-	        		hasErrors = true;
-	        		logger.warn("Compilation problem: {}", problem);
-	        	}
-	        }
-	    }
-	    if (hasErrors) {
-		    try {
-				Thread.sleep(2000);
-			} catch (InterruptedException e) {
-				e.printStackTrace();
+	public static CompilationUnit getCompilationUnit(ICompilationUnit unit) {
+		ASTParser parser = newParser(null);
+		parser.setSource(unit);
+		CompilationUnit cu = (CompilationUnit)parser.createAST(null);
+		IProblem[] problems = cu.getProblems();
+		if (problems != null) {
+			for (IProblem problem : problems) {
+				if (problem.isError()) {
+					logger.warn("Compilation problem: {}", problem);
+				}
 			}
-	    }
+		}
 		return cu;
 	}
 
-	private final Workspace workspace;
-	private final MethodSet methods;
+	private final Workspace               workspace;
+	private final MethodSet               methods;
+	private final CompileProblemReport    problems;
+	private final UnitCache               units;   /* Opportunities of unchanged units from earlier prepares (or null). */
+	private final int                     topK;    /* Max opportunities kept per hot method, or 0 for all. */
+	private final ExtractMethodEnumerator extractMethods;
+	private final AtomicLong              dropped; /* Opportunities dropped by `topK' in parsed units. */
 	
 	public HotMethodRefactoringFinder(Workspace workspace) {
 		this.workspace = workspace;
+		this.problems  = new CompileProblemReport(
+			workspace.getConfiguration().getCachePath(),
+			workspace.getConfiguration().getArguments().getMaxCompileErrors()
+		);
+
+		String profile = workspace.getConfiguration().getArguments().getProfile();
+		if (profile != null) {
+			this.methods = readProfile(Paths.get(profile));
+		} else {
+			Path methodsFile = getWorkspace().getSrcPath().resolve("methods.config");
+			this.methods = new MethodSet(methodsFile);
+
+			if (this.methods.size() == 0) {
+				throw new RuntimeException(
+					"Bad hot methods configuration: " + methodsFile
+				);
+			}
+		}
+
+		CommandLineArguments arguments = workspace.getConfiguration().getArguments();
+
+		this.topK           = arguments.getTopK();
+		this.extractMethods = new ExtractMethodEnumerator(
+			arguments.getExtractMaxLength(),
+			arguments.getExtractStride(),
+			arguments.getExtractRanges()
+		);
+		this.dropped        = new AtomicLong();
 
-		Path methodsFile = getWorkspace().getSrcPath().resolve("methods.config");
-		this.methods = new MethodSet(methodsFile);
+		String incremental = arguments.getIncrementalFolder();
+		String settings    = "top-k=" + this.topK + ";extract-method=" + this.extractMethods + ";context-hash=" + DigestUtil.getContextHash();
+		this.units = incremental != null ? new UnitCache(Paths.get(incremental), this.methods, settings) : null;
+	}
 
-		if (this.methods.size() == 0) {
-			throw new RuntimeException(
-				"Bad hot methods configuration: " + methodsFile
-			);
+	/** Return hot methods of a profile. The selected methods and their weights are written to `profile.tsv' in the cache folder. */
+	private MethodSet readProfile(Path profile) {
+		double minSelf = getWorkspace().getConfiguration().getArguments().getProfileMinSelf();
+		try {
+			ProfileReader                          reader  = new ProfileReader().read(profile);
+			Map<MethodSignature, MethodSet.Weight> methods = reader.getHotMethods(minSelf);
+			if (methods.isEmpty()) {
+				throw new RuntimeException("No hot methods (min self share " + minSelf + ") in profile: " + profile);
+			}
+			logger.info("Profile: samples = {}, hot methods = {}", reader.getSamples(), methods.size());
+			reader.write(getWorkspace().getConfiguration().getCachePath().resolve("profile.tsv"), methods);
+			return new MethodSet(methods);
+		} catch (IOException e) {
+			throw new RuntimeException("Failed to read profile: " + profile, e);
 		}
 	}
 
@@ -77,6 +138,11 @@ public class HotMethodRefactoringFinder {
 	}
 
 	protected void visitCompilationUnits(Consumer<? super ICompilationUnit> action) {
+		getCompilationUnits().forEach(action);
+	}
+
+	/** Return included compilation units sorted by handle identifier. (The resulting list should be deterministic.) */
+	protected List<ICompilationUnit> getCompilationUnits() {
 
 		List<IPackageFragment> fragments = getSourceFragments();
 		
@@ -86,17 +152,16 @@ public class HotMethodRefactoringFinder {
 			System.out.println("\t" + fragment.getHandleIdentifier());
 		}
 
-		List<ICompilationUnit> units = fragments.stream()
-		//.sorted((x,y) -> x.getElementName().compareTo(y.getElementName()))
+		return fragments.stream()
 		.flatMap(f -> {
 			try {
-				return Arrays.asList(f.getCompilationUnits()).stream(); // TODO: Is the order guaranteed to be sorted by filename?
+				return Arrays.asList(f.getCompilationUnits()).stream(); // Order is not guaranteed; sorted below.
 			} catch (JavaModelException e) {}
 			return java.util.stream.Stream.empty();
 		})
+		.filter(getCompilationUnitFilter())
+		.sorted(Comparator.comparing(ICompilationUnit::getHandleIdentifier))
 		.collect(Collectors.toList());
-		units = units.stream().filter(getCompilationUnitFilter()).collect(Collectors.toList());
-		units.forEach(action);
 	}
 
 	/** Return sorted list of source roots. (The resulting list should be deterministic.)*/
@@ -128,15 +193,173 @@ public class HotMethodRefactoringFinder {
 		return new Predicate<ICompilationUnit>() {
 			@Override
 			public boolean test(ICompilationUnit u) {
-				return true;
+				// Skip units whose types declare no hot methods (without parsing them).
+				try {
+					String pkg = u.getParent().getElementName();
+					for (IType type : u.getTypes()) {
+						if (methods.hasMethods(pkg.isEmpty() ? type.getElementName() : pkg + "." + type.getElementName())) {
+							return true;
+						}
+					}
+					return false;
+				} catch (JavaModelException e) {
+					e.printStackTrace();
+					return true;
+				}
 			}
 		};
 	}
 
+	/** Return number of units per parser batch. */
+	protected int getParseBatchSize() {
+		return Math.max(1, getWorkspace().getConfiguration().getArguments().getParseBatchSize());
+	}
+
+	/** Split units into consecutive batches of units from the same project. */
+	protected List<List<ICompilationUnit>> getBatches(List<ICompilationUnit> units) {
+		List<List<ICompilationUnit>> batches   = new ArrayList<>();
+		List<ICompilationUnit>       batch     = null;
+		int                          batchSize = getParseBatchSize();
+		for (ICompilationUnit unit : units) {
+			if (
+				batch == null ||
+				batch.size() >= batchSize ||
+				!batch.get(0).getJavaProject().equals(unit.getJavaProject())
+			) {
+				batch = new ArrayList<>(batchSize);
+				batches.add(batch);
+			}
+			batch.add(unit);
+		}
+		return batches;
+	}
+
+	/** Parse and visit the specified units and return their opportunities in unit order.
+	 *
+	 *  All units in the batch are parsed by a single `ASTParser.createASTs' call so that
+	 *  the lookup environment (and thereby resolved library types) is shared within the
+	 *  batch. Each AST is visited as soon as it is created and is not retained. Units
+	 *  found in the unit cache (`--incremental') are not parsed. Units with compile
+	 *  errors are not stored, so that their errors are reported by every prepare.
+	 *  With `--top-k', only the highest ranked opportunities of each hot method are
+	 *  kept (see `OpportunityRanking'). */
+	protected List<OpportunityBuffer> findOpportunities(List<ICompilationUnit> batch) {
+		OpportunityBuffer[]            buffers = new OpportunityBuffer[batch.size()];
+		String[]                       keys    = new String[batch.size()];
+		Map<ICompilationUnit, Integer> index   = new HashMap<>();
+		List<ICompilationUnit>         parse   = new ArrayList<>(batch.size());
+		for (int i = 0; i < batch.size(); ++i) {
+			ICompilationUnit unit = batch.get(i);
+			index.put(unit, i);
+			if (this.units != null && (keys[i] = this.units.getKey(unit)) != null) {
+				buffers[i] = this.units.get(keys[i]);
+			}
+			if (buffers[i] == null) {
+				parse.add(unit);
+			}
+		}
+
+		if (!parse.isEmpty()) {
+			ASTParser parser = newParser(batch.get(0).getJavaProject());
+			parser.createASTs(parse.toArray(new ICompilationUnit[0]), new String[0], new ASTRequestor() {
+				@Override
+				public void acceptAST(ICompilationUnit source, CompilationUnit cu) {
+					problems.add(source, cu); // Throws if the error threshold is exceeded.
+					int               i      = index.get(source);
+					OpportunityBuffer buffer = new OpportunityBuffer(topK);
+					try {
+						cu.accept(new HotMethodVisitor(buffer, source, cu, methods, extractMethods));
+					} catch (RuntimeException e) {
+						// Fail the run (as a serial visit would) rather than cache the unit without opportunities.
+						throw new RuntimeException("Failed to visit " + source.getHandleIdentifier(), e);
+					}
+					buffers[i] = buffer;
+					dropped.addAndGet(buffer.getDropped());
+					if (keys[i] != null && !hasErrors(cu)) {
+						units.put(keys[i], buffer);
+					}
+				}
+			}, null);
+		}
+
+		List<OpportunityBuffer> result = new ArrayList<>(buffers.length);
+		for (OpportunityBuffer buffer : buffers) {
+			result.add(buffer != null ? buffer : new OpportunityBuffer());
+		}
+		return result;
+	}
+
+	private static boolean hasErrors(CompilationUnit cu) {
+		IProblem[] problems = cu.getProblems();
+		if (problems != null) {
+			for (IProblem problem : problems) {
+				if (problem.isError()) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/** Return number of worker threads used to discover opportunities. */
+	protected int getJobs() {
+		return Math.max(1, getWorkspace().getConfiguration().getArguments().getJobs());
+	}
+
 	public void cacheOpportunities() {
-		visitCompilationUnits(icu -> {
-			CompilationUnit cu = HotMethodRefactoringFinder.getCompilationUnit(icu);
-			cu.accept(new HotMethodVisitor(getCache(), icu, cu, this.methods));
-		});
+		try {
+			cacheOpportunities(getBatches(getCompilationUnits()), getJobs());
+			if (this.units != null) {
+				logger.info("Unit cache: hits = {}, misses = {}", this.units.getHits(), this.units.getMisses());
+			}
+			if (this.topK > 0) {
+				logger.info("Ranking: top {} per hot method, dropped = {}", this.topK, this.dropped.get());
+			}
+		} finally {
+			getCache().close();
+			this.problems.close();
+		}
+	}
+
+	private void cacheOpportunities(List<List<ICompilationUnit>> batches, int jobs) {
+
+		if (jobs == 1) {
+			for (List<ICompilationUnit> batch : batches) {
+				findOpportunities(batch).forEach(getCache()::write);
+			}
+			return;
+		}
+
+		// Batches are parsed and visited on a bounded worker pool, but results are
+		// written in unit order so that the cache matches a serial run. At most
+		// `2 * jobs' batches are in flight to bound the memory held by pending results.
+
+		ExecutorService                        pool    = Executors.newFixedThreadPool(jobs);
+		Deque<Future<List<OpportunityBuffer>>> pending = new ArrayDeque<>();
+		try {
+			for (List<ICompilationUnit> batch : batches) {
+				pending.add(pool.submit(() -> findOpportunities(batch)));
+				if (pending.size() >= 2 * jobs) {
+					writeOpportunities(pending.removeFirst());
+				}
+			}
+			while (!pending.isEmpty()) {
+				writeOpportunities(pending.removeFirst());
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private void writeOpportunities(Future<List<OpportunityBuffer>> result) {
+		try {
+			result.get().forEach(getCache()::write);
+		} catch (ExecutionException e) {
+			// Propagate as in a serial run (e.g., compile error threshold exceeded).
+			throw e.getCause() instanceof RuntimeException cause ? cause : new RuntimeException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while caching opportunities.", e);
+		}
 	}
 }
@@ -22,9 +22,13 @@ import org.eclipse.jdt.core.dom.Block;
 import org.eclipse.jdt.core.dom.BooleanLiteral;
 import org.eclipse.jdt.core.dom.CharacterLiteral;
 import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.DoStatement;
+import org.eclipse.jdt.core.dom.EnhancedForStatement;
 import org.eclipse.jdt.core.dom.FieldAccess;
+import org.eclipse.jdt.core.dom.ForStatement;
 import org.eclipse.jdt.core.dom.IBinding;
 import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
 import org.eclipse.jdt.core.dom.IVariableBinding;
 import org.eclipse.jdt.core.dom.InfixExpression;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
@@ -37,12 +41,12 @@ import org.eclipse.jdt.core.dom.SingleVariableDeclaration;
 import org.eclipse.jdt.core.dom.Statement;
 import org.eclipse.jdt.core.dom.StringLiteral;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
-import org.eclipse.jdt.core.dom.TypeDeclarationStatement;
 import org.eclipse.jdt.core.dom.TypeParameter;
 import org.eclipse.jdt.core.dom.VariableDeclaration;
 import org.eclipse.jdt.core.dom.VariableDeclarationExpression;
 import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
 import org.eclipse.jdt.core.dom.VariableDeclarationStatement;
+import org.eclipse.jdt.core.dom.WhileStatement;
 import org.eclipse.jdt.internal.core.SourceField;
 import org.eclipse.jdt.internal.corext.refactoring.util.JavaElementUtil;
 
@@ -53,13 +57,33 @@ import org.eclipse.jdt.internal.corext.refactoring.util.JavaElementUtil;
  * visitor to fan out from the initial context.
  */
 public class HotMethodVisitor  extends ASTVisitor {
-	/** Cache for refactoring descriptors.*/
-	private Cache               cache;
-	private ICompilationUnit    unit;
-	private CompilationUnit     cu;
-	private MethodSet           methods;
-	private boolean             isCapture;
-	private final List<Boolean> isCaptureStack;
+	/** Version of the opportunities found; increment on changes that affect them (invalidates `UnitCache'). */
+	public static final int VERSION = 8;
+
+	/** Ranking state of a method declaration (see `OpportunityRanking'). */
+	private static class Scope {
+		private final String           group;     /* Outermost enclosing hot method, or null if not in a hot method. */
+		private final MethodSet.Weight weight;    /* Weight of the innermost enclosing hot method (null if unweighted). */
+		private final int              limit;     /* Max opportunities kept of `group' (by its weight). */
+		private       int              loopDepth; /* Number of loops enclosing the visited node within the declaration. */
+
+		private Scope(String group, MethodSet.Weight weight, int limit) {
+			this.group  = group;
+			this.weight = weight;
+			this.limit  = limit;
+		}
+	}
+
+	/** Buffer for refactoring descriptors found in this unit. */
+	private OpportunityBuffer       buffer;
+	private String                  handle; /* Handle identifier of the visited compilation unit. */
+	private CompilationUnit         cu;
+	private MethodSet               methods;
+	private ExtractMethodEnumerator extractMethods;
+	private DeclarationContext      declaration; /* Innermost declaration enclosing the visited node. */
+	private boolean                 isCapture;
+	private final List<Boolean>     isCaptureStack;
+	private final List<Scope>       scopeStack;
 
 	// A list of methods accessed from hot methods in
 	// the associated compilation unit.
@@ -80,14 +104,29 @@ public class HotMethodVisitor  extends ASTVisitor {
 	private static final boolean isCaptureMethodIndirection    = true;
 	private static final boolean isCaptureRename               = true;
 
-	public HotMethodVisitor(Cache cache, ICompilationUnit unit, CompilationUnit cu, MethodSet methods) {
-		this.cache          = cache;
-		this.unit           = unit;
+	public HotMethodVisitor(OpportunityBuffer buffer, ICompilationUnit unit, CompilationUnit cu, MethodSet methods) {
+		this(buffer, unit.getHandleIdentifier(), cu, methods);
+	}
+
+	public HotMethodVisitor(OpportunityBuffer buffer, ICompilationUnit unit, CompilationUnit cu, MethodSet methods, ExtractMethodEnumerator extractMethods) {
+		this(buffer, unit.getHandleIdentifier(), cu, methods, extractMethods);
+	}
+
+	/** Create visitor for a unit with the specified handle identifier (e.g., for ASTs without a Java model). */
+	public HotMethodVisitor(OpportunityBuffer buffer, String handle, CompilationUnit cu, MethodSet methods) {
+		this(buffer, handle, cu, methods, new ExtractMethodEnumerator());
+	}
+
+	public HotMethodVisitor(OpportunityBuffer buffer, String handle, CompilationUnit cu, MethodSet methods, ExtractMethodEnumerator extractMethods) {
+		this.buffer         = buffer;
+		this.handle         = handle;
 		this.cu             = cu;
 		this.methods        = methods;
+		this.extractMethods = extractMethods;
 		this.expansion      = new LinkedList<>();
 		this.isCapture      = false;
 		this.isCaptureStack = new LinkedList<>();
+		this.scopeStack     = new LinkedList<>();
 
 		this.inlineConstantOppStartSet  = new HashSet<Integer>();
 		this.inlineMethodOppStartSet    = new HashSet<Integer>();
@@ -105,7 +144,10 @@ public class HotMethodVisitor  extends ASTVisitor {
 	@Override
 	public boolean visit(TypeDeclaration node) {
 		// See endVisit(TypeDeclaration).
-		return true;
+		// Skip types without hot methods, unless they are part of a hot method.
+		return this.isCapture
+			|| !(node.resolveBinding() instanceof ITypeBinding binding)
+			|| this.methods.hasMethods(binding);
 	}
 
 	@Override
@@ -114,7 +156,7 @@ public class HotMethodVisitor  extends ASTVisitor {
 			final boolean wasCapture = this.isCapture;
 			this.isCapture = true;
 			// Add hot context opportunities.
-			if (this.hotContext.contains(ASTHelper.getFullyQualifiedName(node))) {
+			if (this.hotContext.contains(this.declaration.getQualifiedName())) {
 				if (
 					node.getName().resolveBinding() instanceof IBinding binding &&
 					binding.getJavaElement()        instanceof IType    element
@@ -138,10 +180,18 @@ public class HotMethodVisitor  extends ASTVisitor {
 	@Override
 	public void preVisit(ASTNode node) {
 		try {
+			if (node instanceof CompilationUnit unit) {
+				this.declaration = DeclarationContext.of(unit);
+			} else if (DeclarationContext.isDeclaration(node)) {
+				this.declaration = this.declaration.enter(node);
+			}
 			if (node instanceof MethodDeclaration md) {
-				final String qNameAndPList = ASTHelper.getMethodSignature(md);
-				this.isCaptureStack.add(this.methods.hasMethod(qNameAndPList)); // Enable capture if hot.
+				boolean isHot = this.methods.hasMethod(md);
+				this.isCaptureStack.add(isHot); // Enable capture if hot.
 				this.isCapture = this.isCaptureStack.getLast();
+				this.scopeStack.add(createScope(md, isHot));
+			} else if (isLoop(node) && !this.scopeStack.isEmpty()) {
+				this.scopeStack.getLast().loopDepth++;
 			}
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -151,33 +201,51 @@ public class HotMethodVisitor  extends ASTVisitor {
 	@Override
 	public void postVisit(ASTNode node) {
 		try {
+			if (DeclarationContext.isDeclaration(node)) {
+				this.declaration = this.declaration.getParent();
+			}
 			if (node instanceof MethodDeclaration) {
 				this.isCaptureStack.removeLast();
 				this.isCapture = this.isCaptureStack.size() > 0 && this.isCaptureStack.getLast();
+				this.scopeStack.removeLast();
+			} else if (isLoop(node) && !this.scopeStack.isEmpty()) {
+				this.scopeStack.getLast().loopDepth--;
 			}
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
 	}
 
+	/** Return scope of a method declaration; declarations within a hot method rank in its group. */
+	private Scope createScope(MethodDeclaration md, boolean isHot) {
+		Scope outer = this.scopeStack.isEmpty() ? null : this.scopeStack.getLast();
+		if (!isHot) {
+			return outer != null ? new Scope(outer.group, outer.weight, outer.limit) : new Scope(null, null, 0);
+		}
+		MethodSet.Weight weight = md.resolveBinding() instanceof IMethodBinding binding ? this.methods.getWeight(binding) : null;
+		if (outer != null && outer.group != null) {
+			return new Scope(outer.group, weight, outer.limit);
+		}
+		int limit = OpportunityRanking.getTopK(this.buffer.getTopK(), weight, this.methods.getMaxSelf());
+		return new Scope(this.declaration.getSignature(), weight, limit);
+	}
+
+	private static boolean isLoop(ASTNode node) {
+		return node instanceof ForStatement
+			|| node instanceof EnhancedForStatement
+			|| node instanceof WhileStatement
+			|| node instanceof DoStatement;
+	}
+
 	@Override
 	public boolean visit(MethodDeclaration node) {
 		try {
 			// Apply renaming to type declarations in context.
 			if (this.isCapture) {
-				final String qNameAndPList = ASTHelper.getMethodSignature(node);
+				final String qNameAndPList = this.declaration.getSignature();
 				System.out.println(String.format("Visit HOT method declaration %s", qNameAndPList));
-				for (ASTNode n : ASTHelper.getNodeHierarchy(node)) {
-					if (n instanceof TypeDeclaration td) {
-						this.hotContext.add(ASTHelper.getFullyQualifiedName(td));
-					} else if (n instanceof MethodDeclaration md) {
-						this.hotContext.add(ASTHelper.getFullyQualifiedName(md));
-					} else if (n instanceof TypeDeclarationStatement tds) {
-						// TODO: getDeclaration() returns AbstractTypeDeclaration of which TypeDeclaration is one possibility.
-						if (tds.getDeclaration() instanceof TypeDeclaration td) {
-							this.hotContext.add(ASTHelper.getFullyQualifiedName(td));
-						}
-					}
+				for (DeclarationContext d = this.declaration; d.isTypeOrMethod(); d = d.getParent()) {
+					this.hotContext.add(d.getQualifiedName());
 				}
 				visit_rename(node);
 				visit_add_indirection(node);
@@ -194,7 +262,7 @@ public class HotMethodVisitor  extends ASTVisitor {
 			final boolean wasCapture = this.isCapture;
 			this.isCapture = true;
 			// Add hot context opportunities.
-			if (this.hotContext.contains(ASTHelper.getFullyQualifiedName(node))) {
+			if (this.hotContext.contains(this.declaration.getQualifiedName())) {
 				visit_rename(node);
 				for (Object o : node.typeParameters()) {
 					if (o instanceof TypeParameter tp) {
@@ -213,7 +281,7 @@ public class HotMethodVisitor  extends ASTVisitor {
 			if (
 				decl.resolveBinding() instanceof IMethodBinding binding
 			) {
-				addMethodIndirectionOpportunity(new MethodIndirectionContext(decl), createMethodIndirectionDescriptor(binding));
+				addMethodIndirectionOpportunity(new MethodIndirectionContext(this.declaration), createMethodIndirectionDescriptor(binding));
 			}
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -221,10 +289,24 @@ public class HotMethodVisitor  extends ASTVisitor {
 	}
 
 	private void addOpportunity(RefactoringOpportunityContext context, RefactoringDescriptor descriptor) {
+		addOpportunity(context, descriptor, 1);
+	}
+
+	/** Add opportunity affecting `statements' statements, ranked within the enclosing hot method. */
+	private void addOpportunity(RefactoringOpportunityContext context, RefactoringDescriptor descriptor, int statements) {
 		if (!this.isCapture || descriptor == null) {
 			return;
 		}
-		this.cache.write(context, descriptor);
+		Scope scope = this.scopeStack.isEmpty() ? null : this.scopeStack.getLast();
+		if (scope == null || scope.group == null) {
+			this.buffer.add(context, descriptor); // E.g., renames of types enclosing hot methods.
+		} else {
+			double score = OpportunityRanking.score(descriptor, scope.weight, scope.loopDepth, statements);
+			if (this.buffer.getTopK() > 0) {
+				descriptor.putMeta("score", OpportunityRanking.format(score));
+			}
+			this.buffer.add(context, descriptor, scope.group, score, scope.limit);
+		}
 	}
 
 	private void addExtractConstantFieldOpportunity(ExtractConstantFieldContext context, ExtractConstantFieldDescriptor descriptor) {
@@ -237,8 +319,8 @@ public class HotMethodVisitor  extends ASTVisitor {
 	private ExtractConstantFieldDescriptor createExtractConstantFieldDescriptor(int start, int length) {
 		String selection = "" + start + " " + length;
 		Map<String, String> args = new TreeMap<>();
-		args.put("input", this.unit.getHandleIdentifier());
-		args.put("element", this.unit.getHandleIdentifier());
+		args.put("input", this.handle);
+		args.put("element", this.handle);
 		args.put("selection", selection);
 		return new ExtractConstantFieldDescriptor(args);
 	}
@@ -257,8 +339,8 @@ public class HotMethodVisitor  extends ASTVisitor {
 	@Override
 	public boolean visit(BooleanLiteral literal) {
 		try {
-			addExtractConstantFieldOpportunity(new ExtractConstantFieldContext(literal), createExtractConstantFieldDescriptor(literal.getStartPosition(), literal.getLength()));
-			addExtractTempOpportunity(new ExtractTempContext(literal), createExtractTempDescriptor(literal.getStartPosition(), literal.getLength()));
+			addExtractConstantFieldOpportunity(new ExtractConstantFieldContext(this.declaration), createExtractConstantFieldDescriptor(literal.getStartPosition(), literal.getLength()));
+			addExtractTempOpportunity(new ExtractTempContext(this.declaration), createExtractTempDescriptor(literal.getStartPosition(), literal.getLength()));
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -268,8 +350,8 @@ public class HotMethodVisitor  extends ASTVisitor {
 	@Override
 	public boolean visit(CharacterLiteral literal) {
 		try {
-			addExtractConstantFieldOpportunity(new ExtractConstantFieldContext(literal), createExtractConstantFieldDescriptor(literal.getStartPosition(), literal.getLength()));
-			addExtractTempOpportunity(new ExtractTempContext(literal), createExtractTempDescriptor(literal.getStartPosition(), literal.getLength()));
+			addExtractConstantFieldOpportunity(new ExtractConstantFieldContext(this.declaration), createExtractConstantFieldDescriptor(literal.getStartPosition(), literal.getLength()));
+			addExtractTempOpportunity(new ExtractTempContext(this.declaration), createExtractTempDescriptor(literal.getStartPosition(), literal.getLength()));
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -279,8 +361,8 @@ public class HotMethodVisitor  extends ASTVisitor {
 	@Override
 	public boolean visit(NumberLiteral literal) {
 		try {
-			addExtractConstantFieldOpportunity(new ExtractConstantFieldContext(literal), createExtractConstantFieldDescriptor(literal.getStartPosition(), literal.getLength()));
-			addExtractTempOpportunity(new ExtractTempContext(literal), createExtractTempDescriptor(literal.getStartPosition(), literal.getLength()));
+			addExtractConstantFieldOpportunity(new ExtractConstantFieldContext(this.declaration), createExtractConstantFieldDescriptor(literal.getStartPosition(), literal.getLength()));
+			addExtractTempOpportunity(new ExtractTempContext(this.declaration), createExtractTempDescriptor(literal.getStartPosition(), literal.getLength()));
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -290,8 +372,8 @@ public class HotMethodVisitor  extends ASTVisitor {
 	@Override
 	public boolean visit(StringLiteral literal) {
 		try {
-			addExtractConstantFieldOpportunity(new ExtractConstantFieldContext(literal), createExtractConstantFieldDescriptor(literal.getStartPosition(), literal.getLength()));
-			addExtractTempOpportunity(new ExtractTempContext(literal), createExtractTempDescriptor(literal.getStartPosition(), literal.getLength()));
+			addExtractConstantFieldOpportunity(new ExtractConstantFieldContext(this.declaration), createExtractConstantFieldDescriptor(literal.getStartPosition(), literal.getLength()));
+			addExtractTempOpportunity(new ExtractTempContext(this.declaration), createExtractTempDescriptor(literal.getStartPosition(), literal.getLength()));
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -301,8 +383,8 @@ public class HotMethodVisitor  extends ASTVisitor {
 	@Override
 	public boolean visit(ArrayInitializer literal) {
 		try {
-			addExtractConstantFieldOpportunity(new ExtractConstantFieldContext(literal), createExtractConstantFieldDescriptor(literal.getStartPosition(), literal.getLength()));
-			addExtractTempOpportunity(new ExtractTempContext(literal), createExtractTempDescriptor(literal.getStartPosition(), literal.getLength()));
+			addExtractConstantFieldOpportunity(new ExtractConstantFieldContext(this.declaration), createExtractConstantFieldDescriptor(literal.getStartPosition(), literal.getLength()));
+			addExtractTempOpportunity(new ExtractTempContext(this.declaration), createExtractTempDescriptor(literal.getStartPosition(), literal.getLength()));
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -330,15 +412,15 @@ public class HotMethodVisitor  extends ASTVisitor {
 	private InlineConstantFieldDescriptor createInlineConstantFieldDescriptor(int start, int length) {
 		String selection = "" + start + " " + length;
 		Map<String, String> args = new TreeMap<>();
-		args.put("input", this.unit.getHandleIdentifier());
-		args.put("element", this.unit.getHandleIdentifier());
+		args.put("input", this.handle);
+		args.put("element", this.handle);
 		args.put("selection", selection);
 		return new InlineConstantFieldDescriptor(args);
 	}
 
 	private InlineTempDescriptor createInlineTempDescriptor(int start, int length) {
 		Map<String, String> args = new TreeMap<>();
-		args.put("input", this.unit.getHandleIdentifier());
+		args.put("input", this.handle);
 		args.put("selection", "" + start + " " + length);
 		return new InlineTempDescriptor(args);
 	}
@@ -356,7 +438,7 @@ public class HotMethodVisitor  extends ASTVisitor {
 					if (this.cu instanceof CompilationUnit cu) {
 						ASTNode declNode = cu.findDeclaringNode(b);
 						if (declNode instanceof VariableDeclaration || declNode instanceof VariableDeclarationStatement) {
-							addInlineTempOpportunity(new InlineTempContext(name), createInlineTempDescriptor(name.getStartPosition(), name.getLength()));
+							addInlineTempOpportunity(new InlineTempContext(this.declaration), createInlineTempDescriptor(name.getStartPosition(), name.getLength()));
 						}
 					}
 				} catch (Exception e) {
@@ -368,11 +450,11 @@ public class HotMethodVisitor  extends ASTVisitor {
 				boolean isStatic  = (modifiers & org.eclipse.jdt.core.dom.Modifier.STATIC) > 0;
 
 				if (b.getJavaElement() instanceof SourceField element && isSourceAvailable(element)) {
-					addRenameOpportunity(new RenameFieldAccessContext(name), createRenameFieldDescriptor(element));
+					addRenameOpportunity(new RenameFieldAccessContext(this.declaration), createRenameFieldDescriptor(element));
 
 					if (isFinal && isStatic) {
 						addInlineConstantOpportunity(
-							new InlineConstantFieldContext(name),
+							new InlineConstantFieldContext(this.declaration),
 							createInlineConstantFieldDescriptor(
 								name.getStartPosition(),
 								name.getLength()
@@ -403,7 +485,7 @@ public class HotMethodVisitor  extends ASTVisitor {
 			return null;
 		} else {
 			Map<String, String> args = new TreeMap<>();
-			args.put("input", this.unit.getHandleIdentifier());
+			args.put("input", this.handle);
 			args.put("element", element.getHandleIdentifier());
 			args.put("selection", "" + start + " " + length);
 			return new InlineMethodDescriptor(args);
@@ -440,12 +522,12 @@ public class HotMethodVisitor  extends ASTVisitor {
 			) {
 				// Both extract temp and method indirection should work for references to both source and binary elements.
 				try {
-					addExtractTempOpportunity(new ExtractTempContext(node), createExtractTempDescriptor(node.getStartPosition(), node.getLength()));
+					addExtractTempOpportunity(new ExtractTempContext(this.declaration), createExtractTempDescriptor(node.getStartPosition(), node.getLength()));
 				} catch (Exception e) {
 					e.printStackTrace();
 				}
 				try {
-					addMethodIndirectionOpportunity(new MethodIndirectionContext(node), createMethodIndirectionDescriptor(binding));
+					addMethodIndirectionOpportunity(new MethodIndirectionContext(this.declaration), createMethodIndirectionDescriptor(binding));
 				} catch (Exception e) {
 					e.printStackTrace();
 				}
@@ -459,7 +541,7 @@ public class HotMethodVisitor  extends ASTVisitor {
 					if (isSourceAvailable(element) && !element.isReadOnly()) {
 						if (!isConstructor && isApplicable) {
 							addInlineMethodOpportunity(
-								new InlineMethodContext(node),
+								new InlineMethodContext(this.declaration),
 								createInlineMethodDescriptor(
 									binding.getJavaElement(),
 									node.getStartPosition(),
@@ -488,11 +570,11 @@ public class HotMethodVisitor  extends ASTVisitor {
 		return JavaElementUtil.isSourceAvailable((ISourceReference) element);
 	}
 
-	private void addExtractMethodOpportunity(ExtractMethodContext context, ExtractMethodDescriptor descriptor) {
+	private void addExtractMethodOpportunity(ExtractMethodContext context, ExtractMethodDescriptor descriptor, int statements) {
 		if (!isCaptureExtractMethod) {
 			return;
 		}
-		addOpportunity(context, descriptor);
+		addOpportunity(context, descriptor, statements);
 	}
 
 	@SuppressWarnings("unchecked")
@@ -509,8 +591,8 @@ public class HotMethodVisitor  extends ASTVisitor {
 		int blockLength = last.getStartPosition() - blockStart + last.getLength();
 
 		Map<String, String> args = new TreeMap<>();
-		args.put("input", this.unit.getHandleIdentifier());
-		args.put("element", this.unit.getHandleIdentifier());
+		args.put("input", this.handle);
+		args.put("element", this.handle);
 		args.put("selection", "" + blockStart + " " + blockLength);
 
 		Map<String, String> meta = new TreeMap<>();
@@ -522,19 +604,20 @@ public class HotMethodVisitor  extends ASTVisitor {
 	}
 
 	@Override
+	@SuppressWarnings("unchecked")
 	public boolean visit(Block block) {
 		try {
 			// Note: This does not cover (non-block) single statement bodies of
 			//       control flow statements. But let's ignore that for now.
 	
-			int nbrStmts = block.statements().size();
+			List<Statement> statements = block.statements();
 	
-			if (nbrStmts > 0) {
-				for (int start = 0; start < nbrStmts; ++start) {
-					for (int end = start; end < nbrStmts; ++end) {
-						addExtractMethodOpportunity(new ExtractMethodContext(block, end - start + 1), createExtractMethodDescriptor(block, start, end));
-					}
-				}
+			// Descriptors outside hot methods would be discarded (see `addOpportunity').
+			if (this.isCapture && isCaptureExtractMethod && !statements.isEmpty()) {
+				DeclarationContext declContext = this.declaration;
+				this.extractMethods.enumerate(statements, (start, end) -> {
+					addExtractMethodOpportunity(new ExtractMethodContext(declContext, end - start + 1), createExtractMethodDescriptor(block, start, end), end - start + 1);
+				});
 			}
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -597,7 +680,7 @@ public class HotMethodVisitor  extends ASTVisitor {
 				node.resolveFieldBinding() instanceof IVariableBinding binding &&
 				binding.getJavaElement()   instanceof IJavaElement     element
 			) {
-				addRenameOpportunity(new RenameFieldAccessContext(node), createRenameFieldDescriptor(element));
+				addRenameOpportunity(new RenameFieldAccessContext(this.declaration), createRenameFieldDescriptor(element));
 			}
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -644,7 +727,7 @@ public class HotMethodVisitor  extends ASTVisitor {
 					return;
 				}
 				if (!isMain && ! isCtor) {
-					addRenameOpportunity(new RenameMethodContext(decl), createRenameMethodDescriptor((IJavaElement)method));
+					addRenameOpportunity(new RenameMethodContext(this.declaration), createRenameMethodDescriptor((IJavaElement)method));
 				}
 			}
 		} catch (Exception e) {
@@ -659,7 +742,7 @@ public class HotMethodVisitor  extends ASTVisitor {
 				node.resolveBinding()    instanceof IVariableBinding binding  &&
 				binding.getJavaElement() instanceof ILocalVariable   variable
 			) {
-				addRenameOpportunity(new RenameLocalVariableContext(node), createRenameLocalVariableDescriptor(variable));
+				addRenameOpportunity(new RenameLocalVariableContext(this.declaration), createRenameLocalVariableDescriptor(variable));
 			}
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -674,9 +757,9 @@ public class HotMethodVisitor  extends ASTVisitor {
 				binding.getJavaElement() instanceof ILocalVariable   variable
 			) {
 				if (ASTHelper.isMethodParameter(svd)) {
-					addRenameOpportunity(new RenameMethodParameterContext(svd), createRenameMethodParamDescriptor(variable));
+					addRenameOpportunity(new RenameMethodParameterContext(this.declaration), createRenameMethodParamDescriptor(variable));
 				} else {
-					addRenameOpportunity(new RenameLocalVariableContext(svd), createRenameLocalVariableDescriptor(variable));
+					addRenameOpportunity(new RenameLocalVariableContext(this.declaration), createRenameLocalVariableDescriptor(variable));
 				}
 			}
 		} catch (Exception e) {
@@ -688,7 +771,7 @@ public class HotMethodVisitor  extends ASTVisitor {
 	@SuppressWarnings("unchecked")
 	public boolean visit(VariableDeclarationStatement decl) {
 		try {
-			RenameLocalVariableContext context = new RenameLocalVariableContext(decl);
+			RenameLocalVariableContext context = new RenameLocalVariableContext(this.declaration);
 			for (VariableDeclarationFragment frag : (List<VariableDeclarationFragment>)decl.fragments()) {
 				if (
 					frag.getName().resolveBinding() instanceof IBinding       binding &&
@@ -706,7 +789,7 @@ public class HotMethodVisitor  extends ASTVisitor {
 	@SuppressWarnings("unchecked")
 	public boolean visit(VariableDeclarationExpression decl) {
 		try {
-			RenameLocalVariableContext context = new RenameLocalVariableContext(decl);
+			RenameLocalVariableContext context = new RenameLocalVariableContext(this.declaration);
 			for (VariableDeclarationFragment frag : (List<VariableDeclarationFragment>)decl.fragments()) {
 				if (
 					frag.getName().resolveBinding() instanceof IBinding       binding &&
@@ -729,9 +812,9 @@ public class HotMethodVisitor  extends ASTVisitor {
 				binding.getJavaElement()                 instanceof ITypeParameter element
 			) {
 				if (ASTHelper.isMethodTypeParameter(typeParameter)) {
-					addRenameOpportunity(new RenameMethodTypeParameterContext(typeParameter), createRenameTypeParameterDescriptor(element));
+					addRenameOpportunity(new RenameMethodTypeParameterContext(this.declaration), createRenameTypeParameterDescriptor(element));
 				} else if (ASTHelper.isTypeTypeParameter(typeParameter)) {
-					addRenameOpportunity(new RenameTypeTypeParameterContext(typeParameter), createRenameTypeParameterDescriptor(element));
+					addRenameOpportunity(new RenameTypeTypeParameterContext(this.declaration), createRenameTypeParameterDescriptor(element));
 				}
 			}
 		} catch (Exception e) {
@@ -749,7 +832,7 @@ public class HotMethodVisitor  extends ASTVisitor {
 
 	private ExtractTempDescriptor createExtractTempDescriptor(int start, int length) {
 		Map<String, String> args = new TreeMap<>();
-		args.put("input", this.unit.getHandleIdentifier());
+		args.put("input", this.handle);
 		args.put("selection", start + " " + length);
 		return new ExtractTempDescriptor(args);
 	}
@@ -757,7 +840,7 @@ public class HotMethodVisitor  extends ASTVisitor {
 	@Override
 	public boolean visit(InfixExpression node) {
 		try {
-			addExtractTempOpportunity(new ExtractTempContext(node), createExtractTempDescriptor(node.getStartPosition(), node.getLength()));
+			addExtractTempOpportunity(new ExtractTempContext(this.declaration), createExtractTempDescriptor(node.getStartPosition(), node.getLength()));
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -2,20 +2,22 @@ package org.alfine.refactoring.suppliers;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
 
-import org.alfine.refactoring.utils.ASTHelper;
 import org.eclipse.jdt.core.dom.ASTNode;
 
 public class InlineConstantFieldContext extends RefactoringOpportunityContext {
-	private final List<String> declContext;
+	private final DeclarationContext declContext;
 
 	public InlineConstantFieldContext(ASTNode node) {
-		this.declContext = ASTHelper.getDeclarationContext(node);
+		this(DeclarationContext.of(node));
+	}
+
+	public InlineConstantFieldContext(DeclarationContext declContext) {
+		this.declContext = declContext;
 	}
 
 	@Override
 	public Path getContextPath() {
-		return Paths.get("i-constant", String.join("/", this.declContext));
+		return Paths.get("i-constant", this.declContext.getPath());
 	}
 }
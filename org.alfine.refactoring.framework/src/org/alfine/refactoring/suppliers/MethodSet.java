@@ -3,75 +3,101 @@ package org.alfine.refactoring.suppliers;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
+import org.alfine.refactoring.utils.ASTHelper;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.IPackageBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+
+/** Methods listed in a `methods.config' file.
+ *
+ *  Entries may use any format supported by `MethodSignature' (source style,
+ *  JVM descriptors or profiler frames) and are normalized once. They are
+ *  indexed in a trie of (interned) name segments: package components,
+ *  class names and method name, where method nodes hold the signatures of
+ *  the entries. Declarations are looked up from their bindings by walking
+ *  the trie, without building signature strings, and types without hot
+ *  methods can be skipped.
+ *
+ *  Local classes are named below their declaring method and anonymous
+ *  classes are transparent, as in the strings of `ASTHelper.getMethodSignature'. */
 public class MethodSet {
-	private Set<String> fragments;
-	private Set<String> classes;
-	private Set<String> methods;
+
+	/** Node of the name trie. */
+	private static class Node {
+		private final Map<String, Node>     children = new HashMap<>(4);
+		private       List<MethodSignature> signatures; /* Entries naming this node as method. */
+		private       int                   count;      /* Number of entries at or below this node. */
+
+		private Node child(String name) {
+			return this.children.get(name);
+		}
+	}
+
+	/** Sample weights of a method (see `ProfileReader'). */
+	public static class Weight {
+		public long self;  /* Samples with the method as leaf frame. */
+		public long total; /* Samples with the method on the stack. */
+	}
+
+	private Set<String> fragments  = new HashSet<>();
+	private Set<String> classes    = new HashSet<>();
+	private Set<String> methods    = new HashSet<>();
+	private Set<String> normalized = new HashSet<>(); /* Normalized entries (`MethodSignature.toString'). */
+	private Set<String> overloads  = new HashSet<>(); /* Qualified names of entries matching any overload. */
+
+	private Map<String, SortedSet<String>> fragmentMethods = new HashMap<>();         /* Fragment name -> methods in fragment. */
+	private Map<String, Weight>            weights         = new HashMap<>(); /* Weights of weighted entries (normalized signatures). */
+	private long                           maxSelf;                           /* Max self samples of weighted entries. */
+	private Node                           root            = new Node();
 
 	public MethodSet(Path methodsFile) {
-		this.fragments = new HashSet<>();
-		this.classes   = new HashSet<>();
-		this.methods   = new HashSet<>();
 		try {
 			List<String> methods = Files.readAllLines(methodsFile);
 			for (String s : methods) {
-				MethodSet.parseMethod(s, this.fragments, this.classes, this.methods);
-			}
-			System.out.println("--- HOT METHODS ---");
-			System.out.println("Fragments:");
-			for (String fragment : this.fragments) {
-				System.out.println("FRG: " + fragment);
-			}
-			System.out.println("Classes:");
-			for (String clazz : this.classes) {
-				System.out.println("CLS: " + clazz);
-			}
-			System.out.println("Methods:");
-			for (String method: this.methods) {
-				System.out.println("MTH: " + method);
+				MethodSignature signature = MethodSignature.parse(s);
+				if (signature != null) {
+					add(s.trim(), signature, null);
+				}
 			}
+			print();
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
 
-	public static void parseMethod(String methodSignature, Set<String> fragments, Set<String> classes, Set<String> methods) {
-		String s = methodSignature.trim();
-		if (s == "") {
-			return;
+	/** Create set of weighted methods (e.g., hot methods of a profile, see `ProfileReader'). */
+	public MethodSet(Map<MethodSignature, Weight> methods) {
+		for (Map.Entry<MethodSignature, Weight> entry : methods.entrySet()) {
+			add(entry.getKey().toString(), entry.getKey(), entry.getValue());
 		}
-		methods.add(s);
-
-		String   qname = s.substring(0, s.indexOf('('));
-		String[] parts = qname.split("\\.");
+		print();
+	}
 
-		StringBuilder pkg = new StringBuilder();
-		for (int i = 0; i < parts.length - 1; ++i) {
-			char x = parts[i].charAt(0);
-			if (Character.isUpperCase(x)) {
-				StringBuilder cls = new StringBuilder(pkg);
-				if (i > 0) {
-					cls.append(".");
-				}
-				cls.append(parts[i]);
-				classes.add(cls.toString());
-				for (int j = i + 1; j < parts.length - 1; ++j) {
-					cls.append(".");
-					cls.append(parts[j]);
-					classes.add(cls.toString());
-				}
-				break;
-			}
-			if (i > 0) {
-				pkg.append(".");
-			}
-			pkg.append(parts[i]);
+	private void print() {
+		System.out.println("--- HOT METHODS ---");
+		System.out.println("Fragments:");
+		for (String fragment : this.fragments) {
+			System.out.println("FRG: " + fragment);
+		}
+		System.out.println("Classes:");
+		for (String clazz : this.classes) {
+			System.out.println("CLS: " + clazz);
+		}
+		System.out.println("Methods:");
+		for (String method: this.methods) {
+			System.out.println("MTH: " + method);
 		}
-		fragments.add(pkg.toString());
 	}
 
 	public int size() {
@@ -89,4 +115,155 @@ public class MethodSet {
 	public boolean hasMethod(String method) {
 		return methods.contains(method);
 	}
+
+	/** Return sorted methods of the specified fragment (package). */
+	public SortedSet<String> getMethods(String fragment) {
+		return fragmentMethods.getOrDefault(fragment, Collections.emptySortedSet());
+	}
+
+	/** Return true if the declared method is listed (falls back to its normalized signature if unresolved). */
+	public boolean hasMethod(MethodDeclaration node) {
+		IMethodBinding binding = node.resolveBinding();
+		if (binding != null) {
+			return hasMethod(binding);
+		}
+		MethodSignature signature = MethodSignature.parse(ASTHelper.getNormalizedMethodSignature(node));
+		return signature != null
+			&& (this.normalized.contains(signature.toString()) || this.overloads.contains(signature.getQualifiedName()));
+	}
+
+	/** Return true if the method (declaration) of `binding' is listed. */
+	public boolean hasMethod(IMethodBinding binding) {
+		return getSignature(binding) != null;
+	}
+
+	/** Return weight of the method (declaration) of `binding', or null if it is not listed or not weighted. */
+	public Weight getWeight(IMethodBinding binding) {
+		MethodSignature signature = getSignature(binding);
+		return signature != null && !this.weights.isEmpty() ? this.weights.get(signature.toString()) : null;
+	}
+
+	/** Return weight of `entry', or null if it is not listed or not weighted. */
+	public Weight getWeight(String entry) {
+		return this.weights.get(entry);
+	}
+
+	/** Return max self samples of weighted entries (0 if unweighted). */
+	public long getMaxSelf() {
+		return this.maxSelf;
+	}
+
+	/** Return true if entries have weights (i.e., the set was created from a profile). */
+	public boolean isWeighted() {
+		return !this.weights.isEmpty();
+	}
+
+	/** Return first entry matching the method (declaration) of `binding', or null if none. */
+	private MethodSignature getSignature(IMethodBinding binding) {
+		IMethodBinding method = binding.getMethodDeclaration();
+		Node           type   = getNode(method.getDeclaringClass());
+		Node           node   = type != null ? type.child(method.getName()) : null;
+		if (node == null || node.signatures == null) {
+			return null;
+		}
+		ITypeBinding[] types = method.getParameterTypes();
+		for (MethodSignature signature : node.signatures) {
+			if (signature.matches(types)) {
+				return signature;
+			}
+		}
+		return null;
+	}
+
+	/** Return true if listed methods are declared in `type' (or in types nested in it). */
+	public boolean hasMethods(ITypeBinding type) {
+		Node node = getNode(type);
+		return node != null && node.count > 0;
+	}
+
+	/** Return true if listed methods are declared in the package or class with the specified qualified name. */
+	public boolean hasMethods(String qualifiedName) {
+		Node node = this.root;
+		for (String part : qualifiedName.split("\\.")) {
+			if ((node = node.child(part)) == null) {
+				return false;
+			}
+		}
+		return node.count > 0;
+	}
+
+	/** Add `entry' (parsed as `signature') to the sets and to the trie. */
+	private void add(String entry, MethodSignature signature, Weight weight) {
+		if (!this.methods.add(entry)) {
+			return;
+		}
+		this.normalized.add(signature.toString());
+		if (signature.isAnyOverload()) {
+			this.overloads.add(signature.getQualifiedName());
+		}
+		this.fragmentMethods.computeIfAbsent(signature.getPackageName(), k -> new TreeSet<>()).add(entry);
+		if (weight != null) {
+			this.weights.put(entry, weight);
+			this.maxSelf = Math.max(this.maxSelf, weight.self);
+		}
+
+		this.fragments.add(signature.getPackageName());
+
+		StringBuilder cls = new StringBuilder(signature.getPackageName());
+		for (String name : signature.getTypeNames()) {
+			if (cls.length() > 0) {
+				cls.append(".");
+			}
+			cls.append(name);
+			this.classes.add(cls.toString());
+		}
+
+		Node node = this.root;
+		node.count++;
+		for (String segment : signature.getSegments()) {
+			node = node.children.computeIfAbsent(segment.intern(), k -> new Node());
+			node.count++;
+		}
+		if (node.signatures == null) {
+			node.signatures = new ArrayList<>(1);
+		}
+		node.signatures.add(signature);
+	}
+
+	/** Return trie node of `type', or null if no entry is declared in it. */
+	private Node getNode(ITypeBinding type) {
+		if (type == null) {
+			return null;
+		}
+		type = type.getTypeDeclaration();
+
+		Node           parent;
+		IMethodBinding method = type.getDeclaringMethod();
+		if (type.isTopLevel()) {
+			parent = getNode(type.getPackage());
+		} else if (method != null) {
+			// Local or anonymous class: below the declaring method.
+			Node declaring = getNode(method.getDeclaringClass());
+			parent = declaring != null ? declaring.child(method.getName()) : null;
+		} else {
+			parent = getNode(type.getDeclaringClass());
+		}
+
+		if (parent == null || type.isAnonymous()) {
+			return parent;
+		}
+		return parent.child(type.getName());
+	}
+
+	private Node getNode(IPackageBinding pkg) {
+		Node node = this.root;
+		if (pkg != null) {
+			for (String component : pkg.getNameComponents()) {
+				if ((node = node.child(component)) == null) {
+					return null;
+				}
+			}
+		}
+		return node;
+	}
 }
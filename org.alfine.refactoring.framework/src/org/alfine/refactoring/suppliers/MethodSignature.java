@@ -0,0 +1,330 @@
+package org.alfine.refactoring.suppliers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jdt.core.dom.ITypeBinding;
+
+/** A `methods.config' entry normalized from one of the supported formats:
+ *
+ *    p.q.A.B.m(int, List<String>, Object...)    source style (as `ASTHelper.getNormalizedMethodSignature')
+ *    p.q.A$B.m(int, java.util.List, Object[])   qualified (e.g., JFR stack frames)
+ *    p/q/A$B.m(ILjava/util/List;[Ljava/lang/Object;)V   JVM descriptor
+ *    p/q/A$B.m, p.q.A.B::m_[j]                  profiler frames without parameters (any overload)
+ *
+ *  Parameter types are erased. Simple parameter type names (source style)
+ *  are compared with simple names of bindings, (partially) qualified names
+ *  with qualified names. Anonymous classes in binary names (`A$1') are skipped,
+ *  as anonymous classes are transparent in source-style signatures. */
+public final class MethodSignature {
+
+	/** Erased parameter type. */
+	public static final class Param {
+		private final String name;       /* Simple name (or primitive). */
+		private final String qualified;  /* (Partially) qualified name, or null if the entry used a simple name. */
+		private final String suffix;     /* `.' + qualified, to match partially qualified names (`Map.Entry'). */
+		private final int    dimensions;
+
+		private Param(String name, String qualified, int dimensions) {
+			this.name       = name.intern();
+			this.qualified  = qualified != null ? qualified.intern() : null;
+			this.suffix     = qualified != null ? "." + qualified : null;
+			this.dimensions = dimensions;
+		}
+
+		/** Return true if `type' (erased) is this parameter type. */
+		public boolean matches(ITypeBinding type) {
+			int dimensions = 0;
+			if (type.isArray()) {
+				dimensions = type.getDimensions();
+				type       = type.getElementType();
+			}
+			if (dimensions != this.dimensions) {
+				return false;
+			}
+			if (this.qualified != null) {
+				String qualified = type.getErasure().getQualifiedName();
+				return qualified.equals(this.qualified) || qualified.endsWith(this.suffix);
+			}
+			return this.name.equals(type.isTypeVariable() ? type.getName() : type.getErasure().getName());
+		}
+
+		@Override
+		public String toString() {
+			return (this.qualified != null ? this.qualified : this.name) + "[]".repeat(this.dimensions);
+		}
+	}
+
+	private final String   packageName; /* Dot separated, "" for the default package. */
+	private final String[] typeNames;   /* Enclosing type (and method, for local classes) names. */
+	private final String   name;
+	private final Param[]  params;      /* Null if any overload matches. */
+
+	private MethodSignature(String packageName, String[] typeNames, String name, Param[] params) {
+		this.packageName = packageName;
+		this.typeNames   = typeNames;
+		this.name        = name;
+		this.params      = params;
+	}
+
+	public String getPackageName() {
+		return this.packageName;
+	}
+
+	public String[] getTypeNames() {
+		return this.typeNames;
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	/** Return true if the entry has no parameter list (profiler frames). */
+	public boolean isAnyOverload() {
+		return this.params == null;
+	}
+
+	/** Return true if the parameter types of a method match this entry. */
+	public boolean matches(ITypeBinding[] types) {
+		if (this.params == null) {
+			return true;
+		}
+		if (this.params.length != types.length) {
+			return false;
+		}
+		for (int i = 0; i < types.length; ++i) {
+			if (!this.params[i].matches(types[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** Return name segments from the package to the method, e.g., `p', `q', `A', `B', `m'. */
+	public List<String> getSegments() {
+		List<String> segments = new ArrayList<>();
+		if (!this.packageName.isEmpty()) {
+			segments.addAll(Arrays.asList(this.packageName.split("\\.")));
+		}
+		segments.addAll(Arrays.asList(this.typeNames));
+		segments.add(this.name);
+		return segments;
+	}
+
+	/** Return qualified name of the method, e.g., `p.q.A.B.m'. */
+	public String getQualifiedName() {
+		return String.join(".", getSegments());
+	}
+
+	/** Return normalized entry (source style with erased parameter types). */
+	@Override
+	public String toString() {
+		String s = getQualifiedName();
+		if (this.params == null) {
+			return s;
+		}
+		List<String> params = new ArrayList<>();
+		for (Param param : this.params) {
+			params.add(param.toString());
+		}
+		return s + "(" + String.join(", ", params) + ")";
+	}
+
+	/** Parse `entry', or return null if it is empty, a comment, or not a method. */
+	public static MethodSignature parse(String entry) {
+		String s = entry.trim();
+		if (s.isEmpty() || s.startsWith("#")) {
+			return null;
+		}
+
+		s = s.replaceFirst("_\\[[a-z0-9]\\]$", ""); // Frame type suffix of async-profiler.
+		s = s.replace("::", ".");
+
+		int    open   = s.indexOf('(');
+		int    close  = s.lastIndexOf(')');
+		String qname  = open < 0 ? s : s.substring(0, open).trim();
+		String plist  = open < 0 || close < open ? null : s.substring(open + 1, close).trim();
+		String result = open < 0 || close < open ? "" : s.substring(close + 1).trim();
+
+		int dot = qname.lastIndexOf('.');
+		if (dot <= 0 || dot == qname.length() - 1) {
+			return null;
+		}
+		String name = qname.substring(dot + 1);
+		String type = qname.substring(0, dot);
+
+		String       packageName;
+		List<String> typeNames = new ArrayList<>();
+		if (type.indexOf('/') >= 0) {
+			// Binary name: package separated by `/', nested types by `$'.
+			int slash = type.lastIndexOf('/');
+			packageName = type.substring(0, slash).replace('/', '.');
+			addBinaryTypeNames(type.substring(slash + 1), typeNames);
+		} else {
+			// Dotted name: the package ends before the first capitalized segment.
+			String[] parts = type.split("\\.");
+			int      first = parts.length;
+			for (int i = 0; i < parts.length; ++i) {
+				if (!parts[i].isEmpty() && Character.isUpperCase(parts[i].charAt(0))) {
+					first = i;
+					break;
+				}
+			}
+			packageName = String.join(".", Arrays.copyOfRange(parts, 0, first));
+			for (int i = first; i < parts.length; ++i) {
+				addBinaryTypeNames(parts[i], typeNames);
+			}
+		}
+
+		Param[] params = null;
+		if (plist != null) {
+			params = !result.isEmpty() || isDescriptor(plist) ? parseDescriptor(plist) : parseParameters(plist);
+			if (params == null) {
+				return null;
+			}
+		}
+		return new MethodSignature(packageName, typeNames.toArray(new String[0]), name, params);
+	}
+
+	/** Add names of `A$B$1' (anonymous classes are skipped). */
+	private static void addBinaryTypeNames(String name, List<String> names) {
+		for (String part : name.split("\\$")) {
+			if (!part.isEmpty() && !Character.isDigit(part.charAt(0))) {
+				names.add(part);
+			}
+		}
+	}
+
+	/** Return true if `plist' is a JVM parameter descriptor (`I', `[J', `Ljava/lang/String;'). */
+	private static boolean isDescriptor(String plist) {
+		if (plist.indexOf(';') >= 0) {
+			return true;
+		}
+		for (int i = 0; i < plist.length(); ++i) {
+			if ("BCDFIJSZ[".indexOf(plist.charAt(i)) < 0) {
+				return false;
+			}
+		}
+		return !plist.isEmpty();
+	}
+
+	/** Parse a JVM parameter descriptor, or return null if it is malformed. */
+	private static Param[] parseDescriptor(String plist) {
+		List<Param> params = new ArrayList<>();
+		int         i      = 0;
+		while (i < plist.length()) {
+			int dimensions = 0;
+			while (i < plist.length() && plist.charAt(i) == '[') {
+				++dimensions;
+				++i;
+			}
+			if (i == plist.length()) {
+				return null;
+			}
+			char c = plist.charAt(i++);
+			if (c == 'L') {
+				int end = plist.indexOf(';', i);
+				if (end < 0) {
+					return null;
+				}
+				String qualified = plist.substring(i, end).replace('/', '.').replace('$', '.');
+				params.add(new Param(qualified.substring(qualified.lastIndexOf('.') + 1), qualified, dimensions));
+				i = end + 1;
+			} else {
+				String primitive = getPrimitive(c);
+				if (primitive == null) {
+					return null;
+				}
+				params.add(new Param(primitive, null, dimensions));
+			}
+		}
+		return params.toArray(new Param[0]);
+	}
+
+	private static String getPrimitive(char c) {
+		switch (c) {
+			case 'B': return "byte";
+			case 'C': return "char";
+			case 'D': return "double";
+			case 'F': return "float";
+			case 'I': return "int";
+			case 'J': return "long";
+			case 'S': return "short";
+			case 'Z': return "boolean";
+			default:  return null;
+		}
+	}
+
+	/** Parse a comma separated list of (source style or qualified) parameter types. */
+	private static Param[] parseParameters(String plist) {
+		List<Param> params = new ArrayList<>();
+		int         depth  = 0;
+		int         start  = 0;
+		for (int i = 0; i < plist.length(); ++i) {
+			char c = plist.charAt(i);
+			if (c == '<') {
+				++depth;
+			} else if (c == '>') {
+				--depth;
+			} else if (c == ',' && depth == 0) {
+				params.add(parseParameter(plist.substring(start, i)));
+				start = i + 1;
+			}
+		}
+		if (!plist.isBlank()) {
+			params.add(parseParameter(plist.substring(start)));
+		}
+		return params.toArray(new Param[0]);
+	}
+
+	/** Parse a parameter type, e.g., `final java.util.List<String>[]', `@A int...' or `int x'. */
+	private static Param parseParameter(String param) {
+		String type = param.trim();
+		while (type.startsWith("@") && type.indexOf(' ') > 0) {
+			type = type.substring(type.indexOf(' ') + 1).trim(); // Annotation.
+		}
+		if (type.startsWith("final ")) {
+			type = type.substring("final ".length()).trim();
+		}
+
+		// Erase type arguments.
+		StringBuilder erased = new StringBuilder(type.length());
+		int           depth  = 0;
+		for (int i = 0; i < type.length(); ++i) {
+			char c = type.charAt(i);
+			if (c == '<') {
+				++depth;
+			} else if (c == '>') {
+				--depth;
+			} else if (depth == 0) {
+				erased.append(c);
+			}
+		}
+		type = erased.toString().trim();
+
+		// Drop a parameter name (`int x', `int x[]'), then white space (`int []').
+		int dimensions = 0;
+		int space      = type.lastIndexOf(' ');
+		if (space > 0 && Character.isJavaIdentifierStart(type.charAt(space + 1))) {
+			for (String name = type.substring(space + 1).replace(" ", ""); name.endsWith("[]"); name = name.substring(0, name.length() - 2)) {
+				++dimensions;
+			}
+			type = type.substring(0, space);
+		}
+		type = type.replace(" ", "");
+
+		if (type.endsWith("...")) {
+			type = type.substring(0, type.length() - 3);
+			++dimensions;
+		}
+		while (type.endsWith("[]")) {
+			type = type.substring(0, type.length() - 2);
+			++dimensions;
+		}
+
+		type = type.replace('$', '.');
+		int dot = type.lastIndexOf('.');
+		return new Param(type.substring(dot + 1), dot < 0 ? null : type, dimensions);
+	}
+}
@@ -0,0 +1,150 @@
+package org.alfine.refactoring.suppliers;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/** Opportunities found in a single compilation unit, in visiting order.
+ *
+ *  A buffer is filled by one `HotMethodVisitor' and then written to the
+ *  cache in one go (see `Cache.write(OpportunityBuffer)'), which makes it
+ *  possible to visit units concurrently while writing them in unit order.
+ *
+ *  With a positive `topK', ranked opportunities are kept in a bounded
+ *  priority queue per group (hot method), so that only the highest scores
+ *  of each group are kept (earlier opportunities win ties): `topK' of them,
+ *  or the limit of the group (e.g., scaled by profile weight, see
+ *  `OpportunityRanking.getTopK'). Kept opportunities are still returned in
+ *  visiting order. */
+public class OpportunityBuffer {
+
+	public static class Entry {
+		private final Path                  contextPath;
+		private final RefactoringDescriptor descriptor;
+		private final String                line;
+		private final double                score;
+		private final int                   sequence; /* Visiting order. */
+
+		public Entry(Path contextPath, RefactoringDescriptor descriptor) {
+			this(contextPath, descriptor, 0.0, 0);
+		}
+
+		private Entry(Path contextPath, RefactoringDescriptor descriptor, double score, int sequence) {
+			this.contextPath = contextPath;
+			this.descriptor  = descriptor.freeze();
+			this.line        = descriptor.getCacheLine();
+			this.score       = score;
+			this.sequence    = sequence;
+		}
+
+		/** Return context path relative to the cache folder. */
+		public Path getContextPath() {
+			return this.contextPath;
+		}
+
+		public RefactoringDescriptor getDescriptor() {
+			return this.descriptor;
+		}
+
+		/** Return descriptor cache line. */
+		public String getLine() {
+			return this.line;
+		}
+	}
+
+	/** Bounded queue of the ranked entries of a group (lowest score, then latest, first). */
+	private static class Group {
+		private final PriorityQueue<Entry> queue = new PriorityQueue<>(
+			Comparator.comparingDouble((Entry e) -> e.score).thenComparing(e -> -e.sequence)
+		);
+		private final Set<String>          lines = new HashSet<>(); /* Lines in `queue' (a duplicate takes no slot). */
+		private final int                  limit;                   /* Max entries in `queue'. */
+
+		private Group(int limit) {
+			this.limit = limit;
+		}
+	}
+
+	private final int                topK;     /* Max ranked entries per group, or 0 for no limit. */
+	private final List<Entry>        entries = new ArrayList<>();
+	private final Map<String, Group> groups  = new HashMap<>();
+	private       int                sequence;
+	private       int                dropped;
+
+	public OpportunityBuffer() {
+		this(0);
+	}
+
+	public OpportunityBuffer(int topK) {
+		this.topK = topK;
+	}
+
+	public void add(RefactoringOpportunityContext context, RefactoringDescriptor descriptor) {
+		this.entries.add(new Entry(context.getContextPath(), descriptor, 0.0, this.sequence++));
+	}
+
+	/** Add opportunity with the specified context path (e.g., read back from `UnitCache'). */
+	public void add(Path contextPath, RefactoringDescriptor descriptor) {
+		this.entries.add(new Entry(contextPath, descriptor, 0.0, this.sequence++));
+	}
+
+	/** Add opportunity ranked by `score' within `group' (kept unconditionally without `topK'). */
+	public void add(RefactoringOpportunityContext context, RefactoringDescriptor descriptor, String group, double score) {
+		add(context, descriptor, group, score, this.topK);
+	}
+
+	/** Add opportunity ranked by `score' within `group', which keeps at most `limit' entries
+	 *  (set by the first opportunity of the group; kept unconditionally without `topK'). */
+	public void add(RefactoringOpportunityContext context, RefactoringDescriptor descriptor, String group, double score, int limit) {
+		if (this.topK <= 0) {
+			add(context, descriptor);
+			return;
+		}
+		Group g = this.groups.computeIfAbsent(group, k -> new Group(Math.max(limit, 1)));
+		if (g.queue.size() >= g.limit && score <= g.queue.peek().score) {
+			++this.dropped; // Checked first, to not freeze descriptors that are dropped anyway.
+			return;
+		}
+		Entry entry = new Entry(context.getContextPath(), descriptor, score, this.sequence++);
+		if (!g.lines.add(entry.line)) {
+			return;
+		}
+		g.queue.add(entry);
+		if (g.queue.size() > g.limit) {
+			g.lines.remove(g.queue.poll().line);
+			++this.dropped;
+		}
+	}
+
+	/** Return entries in visiting order (ranked entries are final once this is called). */
+	public List<Entry> getEntries() {
+		if (!this.groups.isEmpty()) {
+			for (Group g : this.groups.values()) {
+				this.entries.addAll(g.queue);
+			}
+			this.groups.clear();
+			this.entries.sort(Comparator.comparingInt(e -> e.sequence));
+		}
+		return this.entries;
+	}
+
+	/** Return max ranked entries per group, or 0 for no limit. */
+	public int getTopK() {
+		return this.topK;
+	}
+
+	/** Return number of ranked opportunities dropped by `topK'. */
+	public int getDropped() {
+		return this.dropped;
+	}
+
+	public int size() {
+		return getEntries().size();
+	}
+}
@@ -0,0 +1,64 @@
+package org.alfine.refactoring.suppliers;
+
+import java.util.Locale;
+
+/** Scores of opportunities for `--top-k' (see `OpportunityBuffer').
+ *
+ *  The score of an opportunity in a hot method is the product of
+ *
+ *    - the kind factor: refactorings that move code across method boundaries
+ *      (and thereby change inlining and compilation units) rank above those
+ *      that only reshape expressions, which rank above renames,
+ *    - the loop factor: 2^depth of enclosing loops (at most `MAX_LOOP_DEPTH'),
+ *    - the size factor: sqrt(statements) for extracted statement ranges, and
+ *    - the weight factor: log2(2 + self samples) of the (innermost) hot method,
+ *      which is 1 for hot methods without a profile.
+ *
+ *  Scores rank opportunities within a hot method. Across hot methods, the
+ *  profile decides how many are kept: K is scaled by the share of self
+ *  samples relative to the hottest method (see `getTopK'). Kept ranked
+ *  opportunities carry their score in the `score' meta entry. */
+public final class OpportunityRanking {
+
+	public static final int MAX_LOOP_DEPTH = 4;
+
+	private OpportunityRanking() {}
+
+	public static double score(RefactoringDescriptor descriptor, MethodSet.Weight weight, int loopDepth, int statements) {
+		return getKindFactor(descriptor)
+			* (1 << Math.min(Math.max(loopDepth, 0), MAX_LOOP_DEPTH))
+			* Math.sqrt(Math.max(statements, 1))
+			* (weight != null ? Math.log(2 + weight.self) / Math.log(2) : 1.0);
+	}
+
+	/** Return number of opportunities to keep of a hot method with `weight': `topK' scaled by
+	 *  self samples relative to `maxSelf' (at least 1), or `topK' if unweighted. */
+	public static int getTopK(int topK, MethodSet.Weight weight, long maxSelf) {
+		if (topK <= 0 || weight == null || maxSelf <= 0) {
+			return topK;
+		}
+		return (int)Math.max(1, Math.ceil(topK * (double)Math.min(weight.self, maxSelf) / maxSelf));
+	}
+
+	/** Return `score' as written to descriptor meta. */
+	public static String format(double score) {
+		return String.format(Locale.ROOT, "%.3f", score);
+	}
+
+	/** Return factor of the kind of refactoring. */
+	public static double getKindFactor(RefactoringDescriptor descriptor) {
+		if (descriptor instanceof ExtractMethodDescriptor || descriptor instanceof InlineMethodDescriptor) {
+			return 4.0;
+		} else if (descriptor instanceof MethodIndirectionDescriptor) {
+			return 3.0;
+		} else if (
+			descriptor instanceof ExtractTempDescriptor          ||
+			descriptor instanceof InlineTempDescriptor           ||
+			descriptor instanceof ExtractConstantFieldDescriptor ||
+			descriptor instanceof InlineConstantFieldDescriptor
+		) {
+			return 2.0;
+		}
+		return 1.0; // Renames.
+	}
+}
@@ -0,0 +1,155 @@
+package org.alfine.refactoring.suppliers;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedMethod;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+/** Aggregates sample weights per method from profiler output.
+ *
+ *  Supported inputs are JFR recordings (`*.jfr', `jdk.ExecutionSample'
+ *  events) and collapsed stacks (`frame;frame;..;leaf count' per line, as
+ *  written by async-profiler or `jfr2flame'). The self weight of a method
+ *  counts samples where it is the leaf frame, the total weight samples where
+ *  it is on the stack (once per sample, also for recursive methods).
+ *
+ *  Methods are identified by their normalized `MethodSignature'. */
+public class ProfileReader {
+
+	public static final String EXECUTION_SAMPLE = "jdk.ExecutionSample";
+
+	private final Map<String, MethodSet.Weight> weights    = new HashMap<>(); /* Normalized signature -> weight. */
+	private final Map<String, MethodSignature>  signatures = new HashMap<>();
+	private       long                          samples;
+
+	/** Read `file' as JFR recording if its name ends with `.jfr' and as collapsed stacks otherwise. */
+	public ProfileReader read(Path file) throws IOException {
+		if (file.getFileName().toString().endsWith(".jfr")) {
+			readRecording(file);
+		} else {
+			readCollapsed(file);
+		}
+		return this;
+	}
+
+	/** Read execution samples of a JFR recording. */
+	public void readRecording(Path file) throws IOException {
+		List<String> stack = new ArrayList<>();
+		try (RecordingFile recording = new RecordingFile(file)) {
+			while (recording.hasMoreEvents()) {
+				RecordedEvent event = recording.readEvent();
+				if (!EXECUTION_SAMPLE.equals(event.getEventType().getName())) {
+					continue;
+				}
+				RecordedStackTrace trace = event.getStackTrace();
+				if (trace == null) {
+					continue;
+				}
+				stack.clear();
+				for (RecordedFrame frame : trace.getFrames()) { // Leaf first.
+					RecordedMethod method = frame.getMethod();
+					if (frame.isJavaFrame() && method != null && method.getType() != null) {
+						// Binary name (with `/') so that the package is not guessed from capitalization.
+						stack.add(method.getType().getName().replace('.', '/') + "." + method.getName() + method.getDescriptor());
+					}
+				}
+				add(stack, 1);
+			}
+		}
+	}
+
+	/** Read collapsed stacks (root first, leaf last, followed by the sample count). */
+	public void readCollapsed(Path file) throws IOException {
+		List<String> stack = new ArrayList<>();
+		try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				int space = line.lastIndexOf(' ');
+				if (space < 0) {
+					continue;
+				}
+				long count;
+				try {
+					count = Long.parseLong(line.substring(space + 1).trim());
+				} catch (NumberFormatException e) {
+					continue;
+				}
+				stack.clear();
+				String[] frames = line.substring(0, space).split(";");
+				for (int i = frames.length - 1; i >= 0; --i) { // Leaf first.
+					stack.add(frames[i]);
+				}
+				add(stack, count);
+			}
+		}
+	}
+
+	/** Add a sample with the specified weight (frames leaf first). Frames that are not Java methods are ignored. */
+	private void add(List<String> frames, long weight) {
+		Set<String> seen = new HashSet<>();
+		boolean     leaf = true;
+		for (String frame : frames) {
+			MethodSignature signature = MethodSignature.parse(frame);
+			if (signature == null || signature.getTypeNames().length == 0) {
+				continue; // E.g., native or kernel frames.
+			}
+			String           key = signature.toString();
+			MethodSet.Weight w   = this.weights.computeIfAbsent(key, k -> new MethodSet.Weight());
+			this.signatures.putIfAbsent(key, signature);
+			if (leaf) {
+				w.self += weight;
+				leaf = false;
+			}
+			if (seen.add(key)) {
+				w.total += weight;
+			}
+		}
+		this.samples += weight;
+	}
+
+	/** Return total weight of all samples read. */
+	public long getSamples() {
+		return this.samples;
+	}
+
+	/** Return methods whose self weight is at least `minSelfShare' of all samples, by descending self weight. */
+	public Map<MethodSignature, MethodSet.Weight> getHotMethods(double minSelfShare) {
+		double                                 min    = minSelfShare * this.samples;
+		Map<MethodSignature, MethodSet.Weight> result = new LinkedHashMap<>();
+		this.weights.entrySet().stream()
+			.filter(e -> e.getValue().self > 0 && e.getValue().self >= min)
+			.sorted(Comparator
+				.comparingLong((Map.Entry<String, MethodSet.Weight> e) -> -e.getValue().self)
+				.thenComparing(Map.Entry::getKey))
+			.forEach(e -> result.put(this.signatures.get(e.getKey()), e.getValue()));
+		return result;
+	}
+
+	/** Write `<self> TAB <total> TAB <method>' lines for the specified methods (e.g., for inspection). */
+	public void write(Path file, Map<MethodSignature, MethodSet.Weight> methods) throws IOException {
+		try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			out.write("# samples = " + this.samples);
+			out.newLine();
+			for (Map.Entry<MethodSignature, MethodSet.Weight> entry : methods.entrySet()) {
+				out.write(entry.getValue().self + "\t" + entry.getValue().total + "\t" + entry.getKey());
+				out.newLine();
+			}
+		}
+	}
+}
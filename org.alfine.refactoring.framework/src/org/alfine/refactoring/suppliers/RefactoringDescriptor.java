@@ -1,18 +1,17 @@
 package org.alfine.refactoring.suppliers;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
 
+import org.alfine.utils.Murmur3;
 import org.eclipse.ltk.core.refactoring.RefactoringContribution;
 import org.eclipse.ltk.core.refactoring.RefactoringCore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import jakarta.json.Json;
-import jakarta.json.JsonObjectBuilder;
-
 public abstract class RefactoringDescriptor implements Comparable<RefactoringDescriptor> {
 
 	public static final String ID_NAME = "id";
@@ -22,6 +21,15 @@ public abstract class RefactoringDescriptor implements Comparable<RefactoringDes
 	private Map<String, String> args = new TreeMap<>();
 	private Map<String, String> meta = new TreeMap<>();
 
+	/** Canonical cache line (null until requested, reset when arguments change). */
+	private String line;
+
+	/* Memoized on `freeze()': UTF-8 bytes and 128-bit hash of the cache line. */
+	private boolean frozen;
+	private byte[]  bytes;
+	private long    hash1;
+	private long    hash2;
+
 	public RefactoringDescriptor() {
 		this.meta.put(ID_NAME, getRefactoringID());
 	}
@@ -40,6 +48,42 @@ public abstract class RefactoringDescriptor implements Comparable<RefactoringDes
 	/** Return refactoring descriptor ID. */
 	public abstract String getRefactoringID();
 
+	/** Make this descriptor immutable and compute its canonical form once.
+	 *
+	 *  Frozen descriptors compare, hash and test for equality using the
+	 *  memoized cache line and hash. Return this descriptor. */
+	public RefactoringDescriptor freeze() {
+		if (!this.frozen) {
+			this.args   = Collections.unmodifiableMap(this.args);
+			this.meta   = Collections.unmodifiableMap(this.meta);
+			this.bytes  = getCacheLine().getBytes(StandardCharsets.UTF_8);
+			long[] hash = Murmur3.hash128(this.bytes);
+			this.hash1  = hash[0];
+			this.hash2  = hash[1];
+			this.frozen = true;
+		}
+		return this;
+	}
+
+	public boolean isFrozen() {
+		return this.frozen;
+	}
+
+	/** Return UTF-8 encoded cache line (do not modify). Freezes this descriptor. */
+	public byte[] getCacheBytes() {
+		return freeze().bytes;
+	}
+
+	/** Return first half of the 128-bit (Murmur3) hash of the cache line. Freezes this descriptor. */
+	public long getHash1() {
+		return freeze().hash1;
+	}
+
+	/** Return second half of the 128-bit (Murmur3) hash of the cache line. Freezes this descriptor. */
+	public long getHash2() {
+		return freeze().hash2;
+	}
+
 	/** Return present set of keys. */
 	public Set<String> keySet() {
 		return this.args.keySet();
@@ -50,9 +94,22 @@ public abstract class RefactoringDescriptor implements Comparable<RefactoringDes
 		return this.args.get(key);
 	}
 
-	/** Put refactoring argument into argument map. */
+	/** Put refactoring argument into argument map (not allowed once frozen). */
 	public void putArg(String key, String value) {
+		if (this.frozen) {
+			throw new RuntimeException("Descriptor is frozen: " + this.line);
+		}
 		this.args.put(key, value);
+		this.line = null;
+	}
+
+	/** Put meta entry (not allowed once frozen). */
+	public void putMeta(String key, String value) {
+		if (this.frozen) {
+			throw new RuntimeException("Descriptor is frozen: " + this.line);
+		}
+		this.meta.put(key, value);
+		this.line = null;
 	}
 
 	/** This method should only be used to construct a JavaRefactoringDescriptor. */
@@ -60,25 +117,23 @@ public abstract class RefactoringDescriptor implements Comparable<RefactoringDes
 		return this.args;
 	}
 
+	/** Return meta map (includes refactoring ID). */
+	protected Map<String, String> getMetaMap() {
+		return this.meta;
+	}
+
 	@Override
 	public String toString() {
-		JsonObjectBuilder meta = Json.createObjectBuilder();
-		for (Entry<String, String> entry: this.meta.entrySet()) {
-			meta.add(entry.getKey(), entry.getValue());
-		}
-		JsonObjectBuilder args = Json.createObjectBuilder();
-		for (Entry<String, String> entry: this.args.entrySet()) {
-			args.add(entry.getKey(), entry.getValue());
-		}
-		JsonObjectBuilder obj = Json.createObjectBuilder();
-		obj.add("args", args.build());
-		obj.add("meta", meta.build());
-		return obj.build().toString();
+		return getCacheLine();
 	}
 
 	/** Return a string representation of this descriptor. */
 	public String getCacheLine() {
-		return toString();
+		String line = this.line;
+		if (line == null) {
+			this.line = line = DescriptorCodec.encode(this.args, this.meta);
+		}
+		return line;
 	}
 
 	protected RefactoringContribution getRefactoringContribution() {
@@ -99,8 +154,25 @@ public abstract class RefactoringDescriptor implements Comparable<RefactoringDes
 
 	@Override
 	public boolean equals(Object other) {
-		return (other instanceof RefactoringDescriptor)
-				&& getCacheLine().equals(((RefactoringDescriptor)other).getCacheLine());
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof RefactoringDescriptor that)) {
+			return false;
+		}
+		if (this.frozen && that.frozen && (this.hash1 != that.hash1 || this.hash2 != that.hash2)) {
+			return false;
+		}
+		return getCacheLine().equals(that.getCacheLine());
+	}
+
+	@Override
+	public int hashCode() {
+		if (this.frozen) {
+			return (int)this.hash1;
+		}
+		// Same value as when frozen, without freezing.
+		return (int)Murmur3.hash128(getCacheLine().getBytes(StandardCharsets.UTF_8))[0];
 	}
 
 	@Override
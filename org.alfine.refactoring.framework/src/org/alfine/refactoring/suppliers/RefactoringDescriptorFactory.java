@@ -1,20 +1,13 @@
 package org.alfine.refactoring.suppliers;
 
-import java.io.StringReader;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.TreeMap;
 import java.util.function.BiFunction;
-import java.util.stream.Collectors;
 
 import org.alfine.refactoring.processors.SimpleDescriptor;
 import org.eclipse.jdt.core.refactoring.IJavaRefactorings;
 
-import jakarta.json.Json;
-import jakarta.json.JsonObject;
-import jakarta.json.JsonReader;
-import jakarta.json.JsonString;
-
 public class RefactoringDescriptorFactory {
 
 	private static Map<String, BiFunction<Map<String, String>, Map<String, String>, RefactoringDescriptor>> factories = new HashMap<>();
@@ -34,32 +27,21 @@ public class RefactoringDescriptorFactory {
 	}
 
 	public static RefactoringDescriptor get(String descriptor) {
-		JsonReader jsonReader = Json.createReader(new StringReader(descriptor));
-		JsonObject object     = jsonReader.readObject();
-		JsonObject args       = object.getJsonObject("args");
-		JsonObject meta       = object.getJsonObject("meta");
+		Map<String, String> argsMap = new TreeMap<>();
+		Map<String, String> metaMap = new TreeMap<>();
+		DescriptorCodec.decode(descriptor, argsMap, metaMap);
+		return create(argsMap, metaMap);
+	}
 
-		Map<String, String> argsMap = args.entrySet().stream().collect(
-			Collectors.toMap(Entry::getKey, e -> ((JsonString)e.getValue()).getString())
-		);
-		Map<String, String> metaMap = meta.entrySet().stream().collect(
-			Collectors.toMap(Entry::getKey, e -> ((JsonString)e.getValue()).getString())
-		);
-		return factories.get(metaMap.get(RefactoringDescriptor.ID_NAME)).apply(argsMap, metaMap);
+	/** Create frozen descriptor from argument and meta maps (meta must contain the refactoring ID). */
+	public static RefactoringDescriptor create(Map<String, String> args, Map<String, String> meta) {
+		return factories.get(meta.get(RefactoringDescriptor.ID_NAME)).apply(args, meta).freeze();
 	}
 
 	public static SimpleDescriptor getSimple(String descriptor) {
-		JsonReader jsonReader = Json.createReader(new StringReader(descriptor));
-		JsonObject object     = jsonReader.readObject();
-		JsonObject args       = object.getJsonObject("args");
-		JsonObject meta       = object.getJsonObject("meta");
-
-		Map<String, String> argsMap = args.entrySet().stream().collect(
-			Collectors.toMap(Entry::getKey, e -> ((JsonString)e.getValue()).getString())
-		);
-		Map<String, String> metaMap = meta.entrySet().stream().collect(
-			Collectors.toMap(Entry::getKey, e -> ((JsonString)e.getValue()).getString())
-		);
+		Map<String, String> argsMap = new TreeMap<>();
+		Map<String, String> metaMap = new TreeMap<>();
+		DescriptorCodec.decode(descriptor, argsMap, metaMap);
 		return new SimpleDescriptor(metaMap.get(RefactoringDescriptor.ID_NAME), argsMap);
 	}
 }
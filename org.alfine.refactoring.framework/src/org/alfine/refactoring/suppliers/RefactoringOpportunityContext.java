@@ -20,7 +20,7 @@ public abstract class RefactoringOpportunityContext {
 		String   q     = qNameWithSignature.substring(0, index);
 		String   s     = qNameWithSignature.substring(index);
 		String[] qs    = q.split("\\.");
-		qs[qs.length - 1] = qs[qs.length - 1] + "-" + DigestUtil.md5(s);
+		qs[qs.length - 1] = qs[qs.length - 1] + "-" + DigestUtil.contextHash(s);
 		return Paths.get(String.join("/", qs));
 	}
 }
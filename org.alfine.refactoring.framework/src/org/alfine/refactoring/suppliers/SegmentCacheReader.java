@@ -0,0 +1,151 @@
+package org.alfine.refactoring.suppliers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/** Reads a segment file written by `SegmentCacheWriter'.
+ *
+ *  The file is memory-mapped and only the dictionary and the index are
+ *  decoded up front. Records are decoded on demand: `get(contextPath, id, k)'
+ *  seeks directly to the k-th record of a group. */
+public class SegmentCacheReader {
+
+	private static class Group {
+		private final String contextPath;
+		private final String refactoringID;
+		private final int    count;
+		private final int    offsets; /* Position of the first record offset in the index. */
+
+		private Group(String contextPath, String refactoringID, int count, int offsets) {
+			this.contextPath   = contextPath;
+			this.refactoringID = refactoringID;
+			this.count         = count;
+			this.offsets       = offsets;
+		}
+	}
+
+	private final MappedByteBuffer   buffer;
+	private final String[]           dictionary;
+	private final Map<String, Group> groups = new LinkedHashMap<>();
+
+	public SegmentCacheReader(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Segment too large to map: " + file);
+			}
+			this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		int    footer = buffer.limit() - 16 - SegmentCacheWriter.MAGIC.length;
+		byte[] magic  = new byte[SegmentCacheWriter.MAGIC.length];
+		if (footer >= SegmentCacheWriter.MAGIC.length) {
+			buffer.get(footer + 16, magic);
+		}
+		if (!Arrays.equals(magic, SegmentCacheWriter.MAGIC)) {
+			throw new IOException("Not a segment file (or incomplete): " + file);
+		}
+
+		ByteBuffer in = buffer.duplicate();
+
+		in.position((int)buffer.getLong(footer));
+		this.dictionary = new String[readVarint(in)];
+		for (int i = 0; i < dictionary.length; ++i) {
+			byte[] bytes = new byte[readVarint(in)];
+			in.get(bytes);
+			dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		in.position((int)buffer.getLong(footer + 8));
+		int n = readVarint(in);
+		for (int i = 0; i < n; ++i) {
+			String contextPath   = dictionary[readVarint(in)];
+			String refactoringID = dictionary[readVarint(in)];
+			int    count         = readVarint(in);
+			groups.put(contextPath + '\0' + refactoringID, new Group(contextPath, refactoringID, count, in.position()));
+			in.position(in.position() + 8 * count);
+		}
+	}
+
+	/** Return context paths present in the segment (in writing order). */
+	public List<Path> getContextPaths() {
+		Set<String> result = new LinkedHashSet<>();
+		for (Group group : groups.values()) {
+			result.add(group.contextPath);
+		}
+		return result.stream().map(Paths::get).toList();
+	}
+
+	/** Return number of descriptors with the specified context path and refactoring ID. */
+	public int count(Path contextPath, String refactoringID) {
+		Group group = groups.get(contextPath.toString() + '\0' + refactoringID);
+		return group == null ? 0 : group.count;
+	}
+
+	/** Return the k-th descriptor with the specified context path and refactoring ID. */
+	public RefactoringDescriptor get(Path contextPath, String refactoringID, int k) {
+		Group group = groups.get(contextPath.toString() + '\0' + refactoringID);
+		if (group == null || k < 0 || k >= group.count) {
+			throw new IndexOutOfBoundsException(
+				"No descriptor " + k + " for context = " + contextPath + ", id = " + refactoringID);
+		}
+		return read(group, k);
+	}
+
+	/** Return descriptors with the specified refactoring ID (in writing order within each context). */
+	public Stream<RefactoringDescriptor> getDescriptors(String refactoringID) {
+		List<Group> selected = new ArrayList<>();
+		for (Group group : groups.values()) {
+			if (group.refactoringID.equals(refactoringID)) {
+				selected.add(group);
+			}
+		}
+		return selected.stream().flatMap(group -> IntStream.range(0, group.count).mapToObj(k -> read(group, k)));
+	}
+
+	private RefactoringDescriptor read(Group group, int k) {
+		ByteBuffer in = buffer.duplicate();
+		in.position((int)buffer.getLong(group.offsets + 8 * k));
+		Map<String, String> args = readMap(in);
+		Map<String, String> meta = readMap(in);
+		return RefactoringDescriptorFactory.create(args, meta);
+	}
+
+	private Map<String, String> readMap(ByteBuffer in) {
+		Map<String, String> map = new TreeMap<>();
+		int n = readVarint(in);
+		for (int i = 0; i < n; ++i) {
+			String key   = dictionary[readVarint(in)];
+			String value = dictionary[readVarint(in)];
+			map.put(key, value);
+		}
+		return map;
+	}
+
+	private static int readVarint(ByteBuffer in) {
+		int value = 0;
+		int shift = 0;
+		int b;
+		do {
+			b      = in.get() & 0xff;
+			value |= (b & 0x7f) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+}
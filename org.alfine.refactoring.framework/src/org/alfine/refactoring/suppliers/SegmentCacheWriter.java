@@ -0,0 +1,143 @@
+package org.alfine.refactoring.suppliers;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Writes opportunities into a single segment file (see `SegmentCacheReader').
+ *
+ *  Layout (big-endian):
+ *
+ *    header     : MAGIC (8 bytes)
+ *    records    : per record, varint n, n x (varint key, varint value) for args,
+ *                 then the same for meta; all strings are dictionary ids
+ *    dictionary : varint count, count x (varint length, UTF-8 bytes)
+ *    index      : varint groups, groups x (varint context path id, varint refactoring id,
+ *                 varint count, count x 8-byte record offset)
+ *    footer     : 8-byte dictionary offset, 8-byte index offset, MAGIC
+ *
+ *  Strings (argument keys and values, refactoring IDs, handle identifiers and
+ *  context paths) are stored once in the dictionary. The index is grouped by
+ *  context path and refactoring ID, and record offsets are fixed width so that
+ *  the k-th record of a group can be located without scanning. */
+public class SegmentCacheWriter implements AutoCloseable {
+
+	public static final String FILE  = "opportunities.seg";
+	public static final byte[] MAGIC = "ALFSEG01".getBytes(StandardCharsets.US_ASCII);
+
+	private static class Group {
+		private final int    contextPath;
+		private final int    refactoringID;
+		private       long[] offsets = new long[8];
+		private       int    count;
+
+		private Group(int contextPath, int refactoringID) {
+			this.contextPath   = contextPath;
+			this.refactoringID = refactoringID;
+		}
+
+		private void add(long offset) {
+			if (count == offsets.length) {
+				offsets = Arrays.copyOf(offsets, 2 * count);
+			}
+			offsets[count++] = offset;
+		}
+	}
+
+	private final DataOutputStream     out;
+	private final Map<String, Integer> ids        = new HashMap<>();
+	private final List<String>         dictionary = new ArrayList<>();
+	private final Map<String, Group>   groups     = new LinkedHashMap<>();
+	private       long                 position;
+
+	public SegmentCacheWriter(Path location) throws IOException {
+		Files.createDirectories(location);
+		OutputStream os = Files.newOutputStream(location.resolve(FILE));
+		this.out = new DataOutputStream(new BufferedOutputStream(os, 1 << 16));
+		this.out.write(MAGIC);
+		this.position = MAGIC.length;
+	}
+
+	/** Append descriptor as a record in the group of (context path, refactoring ID). */
+	public void write(Path contextPath, RefactoringDescriptor descriptor) throws IOException {
+		String context = contextPath.toString();
+		String id      = descriptor.getRefactoringID();
+		Group  group   = groups.computeIfAbsent(context + '\0' + id, k -> new Group(id(context), id(id)));
+
+		group.add(position);
+
+		writeMap(descriptor.getArgumentMap());
+		writeMap(descriptor.getMetaMap());
+	}
+
+	/** Write dictionary, index and footer. */
+	@Override
+	public void close() throws IOException {
+		try {
+			long dictionaryOffset = position;
+			writeVarint(dictionary.size());
+			for (String s : dictionary) {
+				byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+				writeVarint(bytes.length);
+				out.write(bytes);
+				position += bytes.length;
+			}
+
+			long indexOffset = position;
+			writeVarint(groups.size());
+			for (Group group : groups.values()) {
+				writeVarint(group.contextPath);
+				writeVarint(group.refactoringID);
+				writeVarint(group.count);
+				for (int i = 0; i < group.count; ++i) {
+					out.writeLong(group.offsets[i]);
+				}
+				position += 8L * group.count;
+			}
+
+			out.writeLong(dictionaryOffset);
+			out.writeLong(indexOffset);
+			out.write(MAGIC);
+		} finally {
+			out.close();
+		}
+	}
+
+	private int id(String s) {
+		Integer id = ids.get(s);
+		if (id == null) {
+			id = dictionary.size();
+			dictionary.add(s);
+			ids.put(s, id);
+		}
+		return id;
+	}
+
+	private void writeMap(Map<String, String> map) throws IOException {
+		writeVarint(map.size());
+		for (Map.Entry<String, String> entry : map.entrySet()) {
+			writeVarint(id(entry.getKey()));
+			writeVarint(id(entry.getValue()));
+		}
+	}
+
+	private void writeVarint(int value) throws IOException {
+		while ((value & ~0x7f) != 0) {
+			out.write((value & 0x7f) | 0x80);
+			value >>>= 7;
+			++position;
+		}
+		out.write(value);
+		++position;
+	}
+}
@@ -0,0 +1,276 @@
+package org.alfine.refactoring.suppliers;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.JavaModelException;
+
+/** Opportunities of single compilation units kept between `--prepare' runs.
+ *
+ *  The opportunities of a unit are stored under a key computed from
+ *
+ *    - the content hash and handle of the unit,
+ *    - the `methods.config' entries (and weights) in the package of the unit,
+ *    - the settings of the visitor (`--top-k', as opportunities are stored
+ *      after ranking, and extract method ranges),
+ *    - the fingerprint of the unit's project (see `getFingerprint'), and
+ *    - `HotMethodVisitor.VERSION'.
+ *
+ *  A unit whose key is found is not parsed; its stored opportunities are
+ *  written to the cache instead. Stored files are `<xx>/<key>.txt' with one
+ *  `<context path> TAB <cache line>' per opportunity, in visiting order. */
+public class UnitCache {
+
+	private final Path                location;
+	private final MethodSet           methods;
+	private final String              settings; /* Visitor settings that affect the opportunities found. */
+	private final Map<String, String> fingerprints = new ConcurrentHashMap<>(); /* Project name -> fingerprint. */
+	private final Map<String, String> hashes       = new ConcurrentHashMap<>(); /* Unit handle -> content hash. */
+	private final AtomicInteger       hits         = new AtomicInteger();
+	private final AtomicInteger       misses       = new AtomicInteger();
+
+	public UnitCache(Path location, MethodSet methods, String settings) {
+		this.location = location;
+		this.methods  = methods;
+		this.settings = settings;
+		try {
+			Files.createDirectories(location);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/** Return key of the specified unit, or null if it cannot be computed. */
+	public String getKey(ICompilationUnit unit) {
+		try {
+			MessageDigest digest = newDigest();
+			update(digest, "visitor:" + HotMethodVisitor.VERSION);
+			update(digest, "settings:" + this.settings);
+			update(digest, "project:" + getFingerprint(unit.getJavaProject()));
+			update(digest, "unit:" + unit.getHandleIdentifier() + ":" + getContentHash(unit));
+			for (String method : this.methods.getMethods(unit.getParent().getElementName())) {
+				MethodSet.Weight weight = this.methods.getWeight(method);
+				update(digest, "method:" + method + (weight != null ? ":" + weight.self + ":" + weight.total : ""));
+			}
+			return hex(digest.digest());
+		} catch (IOException | JavaModelException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/** Return stored opportunities for `key', or null if there are none. */
+	public OpportunityBuffer get(String key) {
+		Path file = getFile(key);
+		if (!Files.exists(file)) {
+			this.misses.incrementAndGet();
+			return null;
+		}
+		try {
+			OpportunityBuffer buffer = new OpportunityBuffer();
+			for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+				int tab = line.indexOf('\t');
+				buffer.add(Paths.get(line.substring(0, tab)), RefactoringDescriptorFactory.get(line.substring(tab + 1)));
+			}
+			this.hits.incrementAndGet();
+			return buffer;
+		} catch (Exception e) {
+			// Treat unreadable entries as missing (they are overwritten by `put').
+			e.printStackTrace();
+			this.misses.incrementAndGet();
+			return null;
+		}
+	}
+
+	/** Store opportunities found in the unit with the specified key. (Safe for concurrent callers.) */
+	public void put(String key, OpportunityBuffer buffer) {
+		Path file = getFile(key);
+		try {
+			Files.createDirectories(file.getParent());
+			// Write to a temporary file first so that readers never see partial entries.
+			Path tmp = Files.createTempFile(file.getParent(), key, ".tmp");
+			try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+				for (OpportunityBuffer.Entry entry : buffer.getEntries()) {
+					out.write(entry.getContextPath().toString());
+					out.write('\t');
+					out.write(entry.getLine());
+					out.newLine();
+				}
+			}
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	public int getHits() {
+		return this.hits.get();
+	}
+
+	public int getMisses() {
+		return this.misses.get();
+	}
+
+	/** Return fingerprint of everything the bindings of a unit in `project' may depend on.
+	 *
+	 *  This covers compiler options, the resolved classpath (libraries by path, size
+	 *  and modification time), and the content of all source units of the project and
+	 *  of the projects it requires. Changing any source therefore invalidates all units
+	 *  of the affected projects, while changing `methods.config' only invalidates units
+	 *  in packages whose entries changed. */
+	private String getFingerprint(IJavaProject project) throws IOException, JavaModelException {
+		String fingerprint = this.fingerprints.get(project.getElementName());
+		if (fingerprint == null) {
+			fingerprint = computeFingerprint(project);
+			this.fingerprints.put(project.getElementName(), fingerprint);
+		}
+		return fingerprint;
+	}
+
+	private String computeFingerprint(IJavaProject project) throws IOException, JavaModelException {
+		MessageDigest digest = newDigest();
+
+		for (Map.Entry<String, String> option : new TreeMap<String, String>(project.getOptions(true)).entrySet()) {
+			update(digest, "option:" + option.getKey() + "=" + option.getValue());
+		}
+
+		for (IClasspathEntry entry : project.getResolvedClasspath(true)) {
+			String line = "classpath:" + entry.getEntryKind() + ":" + entry.getPath();
+			if (entry.getEntryKind() == IClasspathEntry.CPE_LIBRARY) {
+				File file = getFile(entry.getPath());
+				if (file != null) {
+					line += ":" + file.length() + ":" + file.lastModified();
+				}
+			}
+			update(digest, line);
+		}
+
+		for (IJavaProject p : getProjects(project)) {
+			for (ICompilationUnit unit : getSourceUnits(p)) {
+				update(digest, "source:" + unit.getHandleIdentifier() + ":" + getContentHash(unit));
+			}
+		}
+
+		return hex(digest.digest());
+	}
+
+	/** Return `project' and the projects it requires (transitively). */
+	private static List<IJavaProject> getProjects(IJavaProject project) throws JavaModelException {
+		Set<String>         visited = new LinkedHashSet<>();
+		List<IJavaProject>  result  = new ArrayList<>();
+		Deque<IJavaProject> queue   = new ArrayDeque<>();
+		queue.add(project);
+		while (!queue.isEmpty()) {
+			IJavaProject p = queue.removeFirst();
+			if (!visited.add(p.getElementName()) || !p.exists()) {
+				continue;
+			}
+			result.add(p);
+			for (String name : p.getRequiredProjectNames()) {
+				queue.add(p.getJavaModel().getJavaProject(name));
+			}
+		}
+		result.sort(Comparator.comparing(IJavaProject::getElementName));
+		return result;
+	}
+
+	/** Return units of all source roots of `project', sorted by handle identifier. */
+	private static List<ICompilationUnit> getSourceUnits(IJavaProject project) throws JavaModelException {
+		List<ICompilationUnit> units = new ArrayList<>();
+		for (IPackageFragmentRoot root : project.getPackageFragmentRoots()) {
+			if (root.getKind() != IPackageFragmentRoot.K_SOURCE) {
+				continue;
+			}
+			for (IJavaElement child : root.getChildren()) {
+				if (child instanceof IPackageFragment fragment) {
+					for (ICompilationUnit unit : fragment.getCompilationUnits()) {
+						units.add(unit);
+					}
+				}
+			}
+		}
+		units.sort(Comparator.comparing(ICompilationUnit::getHandleIdentifier));
+		return units;
+	}
+
+	/** Return content hash of `unit' (memoized, since units are not modified while preparing). */
+	private String getContentHash(ICompilationUnit unit) throws IOException, JavaModelException {
+		String handle = unit.getHandleIdentifier();
+		String hash   = this.hashes.get(handle);
+		if (hash == null) {
+			IResource resource = unit.getResource();
+			byte[]    content  = resource != null && resource.getLocation() != null
+				? Files.readAllBytes(resource.getLocation().toFile().toPath())
+				: unit.getSource().getBytes(StandardCharsets.UTF_8);
+			hash = hex(newDigest().digest(content));
+			this.hashes.put(handle, hash);
+		}
+		return hash;
+	}
+
+	/** Return file of a classpath entry path (absolute or workspace relative), or null if not found. */
+	private static File getFile(IPath path) {
+		File file = path.toFile();
+		if (file.exists()) {
+			return file;
+		}
+		IResource resource = ResourcesPlugin.getWorkspace().getRoot().findMember(path);
+		if (resource != null && resource.getLocation() != null) {
+			return resource.getLocation().toFile();
+		}
+		return null;
+	}
+
+	private Path getFile(String key) {
+		return this.location.resolve(key.substring(0, 2)).resolve(key + ".txt");
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static void update(MessageDigest digest, String s) {
+		digest.update(s.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte)'\n');
+	}
+
+	private static String hex(byte[] bytes) {
+		StringBuilder sb = new StringBuilder(2 * bytes.length);
+		for (byte b : bytes) {
+			sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		}
+		return sb.toString();
+	}
+}
@@ -1,9 +1,10 @@
 package org.alfine.refactoring.utils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.NoSuchElementException;
 
 import org.alfine.refactoring.framework.Project;
 import org.alfine.utils.DigestUtil;
@@ -48,30 +49,51 @@ public class ASTHelper {
 		return findASTNode(unit, range.getOffset(), range.getLength());
 	}
 
+	/** Return `node' and its ancestors, root first. */
 	public static List<ASTNode> getNodeHierarchy(ASTNode node) {
-		List<ASTNode> nodes = new LinkedList<>();
-		ASTNode n = node;
-		while (n != null) {
+		List<ASTNode> nodes = new ArrayList<>();
+		for (ASTNode n = node; n != null; n = n.getParent()) {
 			nodes.add(n);
-			n = n.getParent();
 		}
-		return new ArrayList<ASTNode>(nodes).reversed();
+		Collections.reverse(nodes);
+		return nodes;
 	}
 
 	public static CompilationUnit getCompilationUnit(ASTNode node) {
-		return (CompilationUnit) getNodeHierarchy(node).stream().filter(n -> n instanceof CompilationUnit).findFirst().orElse(null);
+		return node != null && node.getRoot() instanceof CompilationUnit unit ? unit : null;
 	}
 
+	/** Return type declarations enclosing `node' (and `node' itself), outermost first. */
 	public static List<TypeDeclaration> getTypeDeclarations(ASTNode node) {
-		return getNodeHierarchy(node).stream().filter(n -> n instanceof TypeDeclaration).map(TypeDeclaration.class::cast).collect(Collectors.toList());
+		List<TypeDeclaration> types = new ArrayList<>();
+		for (ASTNode n = node; n != null; n = n.getParent()) {
+			if (n instanceof TypeDeclaration type) {
+				types.add(type);
+			}
+		}
+		Collections.reverse(types);
+		return types;
 	}
 
+	/** Return innermost type declaration enclosing `node' (or `node' itself). */
 	public static TypeDeclaration getTypeDeclaration(ASTNode node) {
-		return getTypeDeclarations(node).getLast();
+		for (ASTNode n = node; n != null; n = n.getParent()) {
+			if (n instanceof TypeDeclaration type) {
+				return type;
+			}
+		}
+		throw new NoSuchElementException("No type declaration encloses: " + node);
 	}
 
+	/** Return outermost method declaration enclosing `node' (or `node' itself), or null if none. */
 	public static MethodDeclaration getMethodDeclaration(ASTNode node) {
-		return (MethodDeclaration) getNodeHierarchy(node).stream().filter(n -> n instanceof MethodDeclaration).findFirst().orElse(null);
+		MethodDeclaration method = null;
+		for (ASTNode n = node; n != null; n = n.getParent()) {
+			if (n instanceof MethodDeclaration m) {
+				method = m;
+			}
+		}
+		return method;
 	}
 
 	public static boolean isMethodParameter(SingleVariableDeclaration node) {
@@ -94,9 +116,10 @@ public class ASTHelper {
 		return getCompilationUnit(decl).getPackage().getName().getFullyQualifiedName();
 	}
 
+	/** Return names of the package, types and methods enclosing `node' (see `DeclarationContext' for visitors). */
 	public static String getFullyQualifiedName(ASTNode node) {
-		List<String> parts = new LinkedList<>();
-		for (ASTNode n : getNodeHierarchy(node).stream().filter(n -> n instanceof CompilationUnit || n instanceof TypeDeclaration || n instanceof MethodDeclaration).collect(Collectors.toList())) {
+		List<String> parts = new ArrayList<>();
+		for (ASTNode n = node; n != null; n = n.getParent()) {
 			if (n instanceof CompilationUnit unit) {
 				parts.add(unit.getPackage().getName().getFullyQualifiedName());
 			} else if (n instanceof TypeDeclaration type) {
@@ -105,9 +128,12 @@ public class ASTHelper {
 				parts.add(method.getName().getFullyQualifiedName());
 			}
 		}
+		Collections.reverse(parts);
 		return String.join(".", parts);
 	}
 
+	/** Return parameters without names, e.g., `(final int, List<String>)'. (Hashed into context
+	 *  paths, see `getDeclarationContext'; keep as is so that existing cache folders stay valid.) */
 	public static String getMethodSignatureParams(MethodDeclaration node) {
 		List<String> paramTypes = new LinkedList<>();
 		for (Object p : node.parameters()) {
@@ -123,17 +149,44 @@ public class ASTHelper {
 		return getFullyQualifiedName(node) + getMethodSignatureParams(node);
 	}
 
+	/** Return parameter types as written (without modifiers and annotations), e.g., `(int[], List<String>, Object...)'. */
+	public static String getNormalizedMethodSignatureParams(MethodDeclaration node) {
+		StringBuilder sb = new StringBuilder("(");
+		for (Object p : node.parameters()) {
+			SingleVariableDeclaration param = (SingleVariableDeclaration) p;
+			if (sb.length() > 1) {
+				sb.append(", ");
+			}
+			sb.append(param.getType().toString());
+			for (int i = 0; i < param.getExtraDimensions(); ++i) {
+				sb.append("[]"); // E.g., `int x[]'.
+			}
+			if (param.isVarargs()) {
+				sb.append("...");
+			}
+		}
+		return sb.append(")").toString();
+	}
+
+	/** Return a signature with normalized parameters (see `getNormalizedMethodSignatureParams') to match
+	 *  `methods.config' entries when bindings are not resolved. */
+	public static String getNormalizedMethodSignature(MethodDeclaration node) {
+		return getFullyQualifiedName(node) + getNormalizedMethodSignatureParams(node);
+	}
+
+	/** Return declaration context parts of `node' (see `DeclarationContext' for visitors, which memoizes them). */
 	public static List<String> getDeclarationContext(ASTNode node) {
-		List<String> parts = new LinkedList<>();
-		for (ASTNode n : getNodeHierarchy(node).stream().filter(n -> n instanceof CompilationUnit || n instanceof TypeDeclaration || n instanceof MethodDeclaration).collect(Collectors.toList())) {
+		List<String> parts = new ArrayList<>();
+		for (ASTNode n = node; n != null; n = n.getParent()) {
 			if (n instanceof CompilationUnit unit) {
 				parts.add(unit.getPackage().getName().getFullyQualifiedName());
 			} else if (n instanceof TypeDeclaration type) {
 				parts.add(type.getName().getFullyQualifiedName());
 			} else if (n instanceof MethodDeclaration method) {
-				parts.add(method.getName().getFullyQualifiedName() + "-" + DigestUtil.md5(getMethodSignatureParams(method)));
+				parts.add(method.getName().getFullyQualifiedName() + "-" + DigestUtil.contextHash(getMethodSignatureParams(method)));
 			}
 		}
+		Collections.reverse(parts);
 		return parts;
 	}
 }
@@ -1,18 +1,78 @@
 package org.alfine.utils;
 
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
-import jakarta.xml.bind.DatatypeConverter;
-
+/** Hashes of names in context paths (e.g., parameter lists of methods).
+ *
+ *  Text is always encoded as UTF-8, and digests are kept per thread, so
+ *  that hashes are stable across machines and can be computed by parallel
+ *  workers. `contextHash' uses the algorithm selected by `setContextHash':
+ *
+ *    md5      : MD5, 32 upper case hex digits (default, as existing caches)
+ *    murmur3  : Murmur3 128-bit, 32 upper case hex digits (faster) */
 public class DigestUtil {
-	public static String md5(String text) {
+
+	public static final String MD5     = "md5";
+	public static final String MURMUR3 = "murmur3";
+
+	private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+	private static final ThreadLocal<MessageDigest> md5 = ThreadLocal.withInitial(() -> {
 		try {
-			MessageDigest md = MessageDigest.getInstance("MD5");
-			md.update(text.getBytes());
-			return DatatypeConverter.printHexBinary(md.digest());
-		} catch (Exception e) {
-			e.printStackTrace();
-			return null;
+			return MessageDigest.getInstance("MD5");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	});
+
+	private static volatile boolean isMurmur3 = false;
+
+	/** Select the algorithm of `contextHash' (`md5' or `murmur3'). */
+	public static void setContextHash(String algorithm) {
+		switch (algorithm) {
+			case MD5:     isMurmur3 = false; break;
+			case MURMUR3: isMurmur3 = true;  break;
+			default:
+				throw new RuntimeException("Unknown context hash: `" + algorithm + "' (expected `md5' or `murmur3').");
+		}
+	}
+
+	public static String getContextHash() {
+		return isMurmur3 ? MURMUR3 : MD5;
+	}
+
+	/** Return hash of `text' for context paths with the selected algorithm. */
+	public static String contextHash(String text) {
+		return isMurmur3 ? murmur3(text) : md5(text);
+	}
+
+	/** Return MD5 of `text' (UTF-8) as upper case hex. */
+	public static String md5(String text) {
+		MessageDigest md = md5.get();
+		md.reset();
+		return hex(md.digest(text.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	/** Return Murmur3 128-bit hash of `text' (UTF-8) as upper case hex. */
+	public static String murmur3(String text) {
+		long[] hash  = Murmur3.hash128(text.getBytes(StandardCharsets.UTF_8));
+		char[] chars = new char[32];
+		for (int i = 0; i < 16; ++i) {
+			chars[i]      = HEX[(int)(hash[0] >>> (60 - 4 * i)) & 0xf];
+			chars[i + 16] = HEX[(int)(hash[1] >>> (60 - 4 * i)) & 0xf];
+		}
+		return new String(chars);
+	}
+
+	/** Return `bytes' as upper case hex. */
+	public static String hex(byte[] bytes) {
+		char[] chars = new char[2 * bytes.length];
+		for (int i = 0; i < bytes.length; ++i) {
+			chars[2 * i]     = HEX[(bytes[i] >> 4) & 0xf];
+			chars[2 * i + 1] = HEX[bytes[i] & 0xf];
 		}
+		return new String(chars);
 	}
 }
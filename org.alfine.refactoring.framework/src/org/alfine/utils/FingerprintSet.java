@@ -0,0 +1,102 @@
+package org.alfine.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/** Set of 128-bit fingerprints stored in an open-addressing table of primitive longs.
+ *
+ *  Used for duplicate suppression of strings without keeping the strings:
+ *  each entry costs 16 bytes (plus load factor slack) regardless of the
+ *  length of the fingerprinted string. The all-zero fingerprint is used
+ *  as the empty slot marker and is remapped on insertion. */
+public class FingerprintSet {
+
+	private static final double MAX_LOAD = 0.5;
+
+	private long[] table; /* Pairs of longs: table[2*i], table[2*i+1]. */
+	private int    size;
+	private int    mask;
+
+	public FingerprintSet() {
+		this(1024);
+	}
+
+	public FingerprintSet(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(16, (int)(expectedSize / MAX_LOAD)) - 1) << 1;
+		this.table = new long[2 * capacity];
+		this.mask  = capacity - 1;
+	}
+
+	/** Add fingerprint of `s' (UTF-8). Return true if it was not already present. */
+	public boolean add(String s) {
+		long[] h = Murmur3.hash128(s.getBytes(StandardCharsets.UTF_8));
+		return add(h[0], h[1]);
+	}
+
+	/** Return true if the fingerprint of `s' (UTF-8) is present. */
+	public boolean contains(String s) {
+		long[] h = Murmur3.hash128(s.getBytes(StandardCharsets.UTF_8));
+		return contains(h[0], h[1]);
+	}
+
+	/** Add fingerprint. Return true if it was not already present. */
+	public boolean add(long h1, long h2) {
+		if (h1 == 0 && h2 == 0) {
+			h2 = 1; // Reserved for empty slots.
+		}
+		int i = indexOf(h1, h2);
+		if (table[2 * i] != 0 || table[2 * i + 1] != 0) {
+			return false;
+		}
+		table[2 * i]     = h1;
+		table[2 * i + 1] = h2;
+		if (++size > MAX_LOAD * (mask + 1)) {
+			grow();
+		}
+		return true;
+	}
+
+	public boolean contains(long h1, long h2) {
+		if (h1 == 0 && h2 == 0) {
+			h2 = 1;
+		}
+		int i = indexOf(h1, h2);
+		return table[2 * i] != 0 || table[2 * i + 1] != 0;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public void clear() {
+		Arrays.fill(this.table, 0L);
+		this.size = 0;
+	}
+
+	/** Return slot holding the fingerprint or the empty slot where it belongs (linear probing). */
+	private int indexOf(long h1, long h2) {
+		int i = (int)(h1 ^ (h1 >>> 32)) & mask;
+		while (true) {
+			long a = table[2 * i];
+			long b = table[2 * i + 1];
+			if ((a == 0 && b == 0) || (a == h1 && b == h2)) {
+				return i;
+			}
+			i = (i + 1) & mask;
+		}
+	}
+
+	private void grow() {
+		long[] old      = this.table;
+		int    capacity = 2 * (mask + 1);
+		this.table = new long[2 * capacity];
+		this.mask  = capacity - 1;
+		for (int i = 0; i < old.length; i += 2) {
+			if (old[i] != 0 || old[i + 1] != 0) {
+				int j = indexOf(old[i], old[i + 1]);
+				table[2 * j]     = old[i];
+				table[2 * j + 1] = old[i + 1];
+			}
+		}
+	}
+}
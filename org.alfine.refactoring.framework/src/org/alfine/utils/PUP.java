@@ -1,17 +1,34 @@
 package org.alfine.utils;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.Enumeration;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.cli.CommandLine;
@@ -23,7 +40,12 @@ import org.apache.commons.cli.ParseException;
 
 public class PUP /* Pack UnPack */ {
 
+	/** Compression level for storing entries uncompressed (`ZipEntry.STORED'). */
+	public static final int STORED = Deflater.NO_COMPRESSION;
+
 	private static boolean verbose = false;
+	private static int     level   = Deflater.DEFAULT_COMPRESSION;
+	private static int     threads = Math.min(8, Runtime.getRuntime().availableProcessors());
 
 	private static void setVerbose() {
 		PUP.verbose = true;
@@ -33,6 +55,32 @@ public class PUP /* Pack UnPack */ {
 		return PUP.verbose;
 	}
 
+	/** Set compression level of produced archives: `STORED' (0), 1-9, or -1 for the deflater default. */
+	public static void setCompressionLevel(int level) {
+		if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+			throw new IllegalArgumentException("Invalid compression level: " + level);
+		}
+		PUP.level = level;
+	}
+
+	public static int getCompressionLevel() {
+		return PUP.level;
+	}
+
+	/** Parse a compression level argument: `stored', `default', or a number in [-1, 9]. */
+	public static int parseCompressionLevel(String value) {
+		switch (value) {
+			case "stored":  return STORED;
+			case "default": return Deflater.DEFAULT_COMPRESSION;
+			default:        return Integer.parseInt(value);
+		}
+	}
+
+	/** Set number of threads used to extract archive entries. */
+	public static void setThreads(int threads) {
+		PUP.threads = Math.max(1, threads);
+	}
+
 	public static void main(String[] args) throws Exception {
 
 		// Unjar a jar file or jar a directory recursively.
@@ -56,6 +104,14 @@ public class PUP /* Pack UnPack */ {
 		dstOption.setRequired(true);
 		options.addOption(dstOption);
 
+		Option levelOption = new Option("z", "level", true, "Compression level for `pack`: `stored`, `default`, or 0-9.");
+		levelOption.setRequired(false);
+		options.addOption(levelOption);
+
+		Option threadsOption = new Option("t", "threads", true, "Number of threads used to extract entries for `unpack`.");
+		threadsOption.setRequired(false);
+		options.addOption(threadsOption);
+
 		CommandLine cmd = null;
 
 		try {
@@ -69,6 +125,12 @@ public class PUP /* Pack UnPack */ {
 		if (cmd.hasOption(verboseOption.getOpt())) {
 			setVerbose();
 		}
+		if (cmd.hasOption(levelOption.getOpt())) {
+			setCompressionLevel(parseCompressionLevel(cmd.getOptionValue(levelOption.getOpt())));
+		}
+		if (cmd.hasOption(threadsOption.getOpt())) {
+			setThreads(Integer.parseInt(cmd.getOptionValue(threadsOption.getOpt())));
+		}
 
 		Path src = Paths.get(cmd.getOptionValue(srcOption.getOpt()));
 		Path dst = Paths.get(cmd.getOptionValue(dstOption.getOpt()));
@@ -87,7 +149,9 @@ public class PUP /* Pack UnPack */ {
 				break;
 			case "unpack":
 				if (!Files.isDirectory(src)) {
-					unjar(new JarFile(src.toString()), dst);
+					try (JarFile jf = new JarFile(src.toString())) {
+						unjar(jf, dst);
+					}
 				} else {
 					throw new IllegalArgumentException("Expected `src` to point to an archive file.");
 				}
@@ -97,12 +161,6 @@ public class PUP /* Pack UnPack */ {
 		}
 	}
 
-	private static void write(OutputStream out, InputStream in) throws Exception {
-		int b;
-		while ((b = in.read()) != -1)
-			out.write(b);
-	}
-
 	private static void addJarEntry(ZipOutputStream out, Path src, Path entry) throws Exception {
 		// Note: A directory entry is defined to be one whose name ends with a "/".
 		String entryPath = entry.toString();
@@ -114,12 +172,34 @@ public class PUP /* Pack UnPack */ {
 			}
 		}
 		if (Files.isDirectory(src)) {
-			out.putNextEntry(new JarEntry(entryPath + "/"));
+			JarEntry je = new JarEntry(entryPath + "/");
+			if (getCompressionLevel() == STORED) {
+				je.setMethod(ZipEntry.STORED);
+				je.setSize(0);
+				je.setCrc(0);
+			}
+			out.putNextEntry(je);
 			out.closeEntry();
+		} else if (getCompressionLevel() == STORED) {
+			// Stored entries must declare size and CRC up front.
+			byte[] content = Files.readAllBytes(src);
+			CRC32  crc     = new CRC32();
+			crc.update(content);
+			JarEntry je = new JarEntry(entryPath);
+			je.setMethod(ZipEntry.STORED);
+			je.setSize(content.length);
+			je.setCompressedSize(content.length);
+			je.setCrc(crc.getValue());
+			out.putNextEntry(je);
+			try {
+				out.write(content);
+			} finally {
+				out.closeEntry();
+			}
 		} else {
 			out.putNextEntry(new JarEntry(entryPath));
-			try (InputStream in = Files.newInputStream(src)) {
-				write(out, in);
+			try {
+				Files.copy(src, out);
 			} finally {
 				out.closeEntry();
 			}
@@ -173,9 +253,10 @@ public class PUP /* Pack UnPack */ {
 		// Assume src is a directory, and that dest is the path to the produced archive.
 		System.out.println("**** Open jar: src=" + src + ", dest=" + dest);
 		try (
-			OutputStream    os   = Files.newOutputStream(dest);
+			OutputStream    os   = new BufferedOutputStream(Files.newOutputStream(dest), 1 << 16);
 			ZipOutputStream out  = new ZipOutputStream(os)
 		) {
+			out.setLevel(getCompressionLevel());
 			jarrec(out, src, Paths.get(""));
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -192,81 +273,189 @@ public class PUP /* Pack UnPack */ {
 		Files.createFile(dir.resolve(".jar"));
 	}
 
+	/** Unpack `jf' into `dest'. Nested jars are unpacked into `<name>.jar.dir'.
+	 *
+	 *  Entries of each archive are extracted concurrently; nested archives
+	 *  are put on a work queue and unpacked after their parent, so at most
+	 *  one archive is open in addition to `jf'. */
 	public static void unjar(JarFile jf, Path dest) throws Exception {
+		Deque<Path[]>   queue = new ArrayDeque<>(); /* { nested jar file, destination } */
+		ExecutorService pool  = Executors.newFixedThreadPool(threads);
+		try {
+			extract(pool, jf, dest, queue);
+			while (!queue.isEmpty()) {
+				Path[] job = queue.removeFirst();
+				System.out.println("nested unjar: " + job[0] + " --> " + job[1]);
+				try (JarFile nested = new JarFile(job[0].toString())) {
+					extract(pool, nested, job[1], queue);
+				}
+				// Delete extracted jar file (content is available in `job[1]').
+				Files.delete(job[0]);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private static void extract(ExecutorService pool, JarFile jf, Path dest, Deque<Path[]> queue) throws Exception {
 		System.out.println("**** Unjar file: `" + jf.getName());
 		markDir(dest);
+
+		// Create directories up front, then extract files concurrently (`JarFile' supports concurrent readers).
+
+		List<JarEntry> files = new ArrayList<>();
 		for (Enumeration<JarEntry> it = jf.entries(); it.hasMoreElements();) {
 			JarEntry je     = it.nextElement();
-			String   name   = je.getName();
-			Path     target = dest.resolve(name);
-			if (PUP.isVerbose()) {
-				System.out.println("extract " + je.getName() + "\n\t" + target.toAbsolutePath());
-			}
+			Path     target = dest.resolve(je.getName());
 			if (je.isDirectory()) {
-				Files.createDirectory(target);
+				Files.createDirectories(target);
 			} else {
-				// Extract non-directory entry.
+				Files.createDirectories(target.getParent());
+				files.add(je);
+			}
+		}
+
+		List<Future<?>> results = new ArrayList<>(files.size());
+		for (JarEntry je : files) {
+			results.add(pool.submit(() -> {
+				Path target = dest.resolve(je.getName());
+				if (PUP.isVerbose()) {
+					System.out.println("extract " + je.getName() + "\n\t" + target.toAbsolutePath());
+				}
 				try (
 					InputStream  in  = jf.getInputStream(je);
 					OutputStream out = Files.newOutputStream(target)
 				) {
-					int b;
-					while ((b = in.read()) != -1)
-						out.write(b);
-				} catch (Exception e) {
-					throw e;
-				}
-				// TODO: We could put these recursive unjar calls on
-				//       a work queue and do them iteratively if too
-				//       many files gets opened. We don't really expect
-				//       to find that many levels nesting though...
-				if (name.endsWith(".jar")) {
-					String dir = name + ".dir";
-					// Extract and delete extracted jar file (content will be
-					// available in `dest.resolve(dir)`).
-					System.out.println("nested unjar: " + target.toString() + " --> " + dest.resolve(dir));
-					unjar(new JarFile(target.toString()), dest.resolve(dir));
-					Files.delete(target);
+					in.transferTo(out);
 				}
+				return null;
+			}));
+		}
+		for (Future<?> result : results) {
+			try {
+				result.get();
+			} catch (ExecutionException e) {
+				throw e.getCause() instanceof Exception cause ? cause : e;
+			}
+		}
+
+		for (JarEntry je : files) {
+			String name = je.getName();
+			if (name.endsWith(".jar")) {
+				queue.add(new Path[] { dest.resolve(name), dest.resolve(name + ".dir") });
 			}
 		}
 	}
 
 	/** Copy files from `src' into `dest' recursively. */
 	public static void treeCopy(Path src, Path dest) throws Exception {
+		treeCopy(src, dest, false);
+	}
+
+	/** Copy files from `src' into `dest' recursively.
+	 *
+	 *  Files whose size and modification time already match are skipped, and
+	 *  copied files get the modification time of their source. Folders are
+	 *  copied concurrently (one task per folder). If `link' is set, files are
+	 *  hard linked instead of copied when possible; only use this when `dest'
+	 *  is a scratch copy, since writing a linked file in place changes both. */
+	public static void treeCopy(Path src, Path dest, boolean link) throws Exception {
 		if (isVerbose()) {
 			System.out.println("treeCopy: exploring\n\tsrc = " + src.toString() + "\n\t dst = " + dest.toString());
 		}
-		if (!Files.exists(dest)) {
-			Files.createDirectories(dest);
-		}
-		listFiles(src).forEach(p -> {
-			if (Files.isDirectory(p)) {
-				try {
-					treeCopy(p, dest.resolve(p.getFileName()));
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
-			} else {
-				if (!Files.exists(dest)) {
-					try {
+
+		ExecutorService pool    = Executors.newFixedThreadPool(threads);
+		List<Future<?>> results = new ArrayList<>();
+		AtomicBoolean   linking = new AtomicBoolean(link); /* Cleared if the file system does not support links. */
+		try {
+			Files.walkFileTree(src, new SimpleFileVisitor<Path>() {
+				private final Deque<List<Path>> files = new ArrayDeque<>(); /* Files of folders being visited. */
+
+				@Override
+				public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+					Path target = dest.resolve(src.relativize(dir).toString());
+					if (!Files.isDirectory(target)) {
 						if (isVerbose()) {
-							System.out.println("treeCopy: mkdir " + dest);
+							System.out.println("treeCopy: mkdir " + target);
 						}
-						Files.createDirectories(dest);
-					} catch (IOException e) {
-						e.printStackTrace();
+						Files.createDirectories(target);
 					}
+					this.files.push(new ArrayList<>());
+					return FileVisitResult.CONTINUE;
 				}
-				try (OutputStream out = Files.newOutputStream(dest.resolve(p.getFileName()))) {
-					if (isVerbose()) {
-						System.out.println("treeCopy: copy " + p);
+
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+					this.files.peek().add(file);
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+					if (e != null) {
+						throw e;
 					}
-					Files.copy(p, out);
-				} catch (IOException e) {
-					e.printStackTrace();
+					List<Path> batch  = this.files.pop();
+					Path       target = dest.resolve(src.relativize(dir).toString());
+					if (!batch.isEmpty()) {
+						results.add(pool.submit(() -> {
+							for (Path file : batch) {
+								copyFile(file, target.resolve(file.getFileName().toString()), linking);
+							}
+							return null;
+						}));
+					}
+					return FileVisitResult.CONTINUE;
+				}
+			});
+
+			for (Future<?> result : results) {
+				try {
+					result.get();
+				} catch (ExecutionException e) {
+					throw e.getCause() instanceof Exception cause ? cause : e;
 				}
 			}
-		});
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/** Copy (or link) `src' to `dest' unless `dest' already has the same size and modification time. */
+	private static void copyFile(Path src, Path dest, AtomicBoolean linking) throws IOException {
+		BasicFileAttributes from = Files.readAttributes(src, BasicFileAttributes.class);
+		if (Files.exists(dest)) {
+			BasicFileAttributes to = Files.readAttributes(dest, BasicFileAttributes.class);
+			if (to.size() == from.size() && to.lastModifiedTime().equals(from.lastModifiedTime())) {
+				return;
+			}
+		}
+
+		if (isVerbose()) {
+			System.out.println("treeCopy: copy " + src);
+		}
+
+		if (linking.get()) {
+			try {
+				Files.deleteIfExists(dest);
+				Files.createLink(dest, src);
+				return;
+			} catch (UnsupportedOperationException | IOException e) {
+				// E.g., `dest' is on another file system; copy this and all following files.
+				linking.set(false);
+			}
+		}
+
+		try (
+			FileChannel in  = FileChannel.open(src, StandardOpenOption.READ);
+			FileChannel out = FileChannel.open(dest, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)
+		) {
+			long size     = in.size();
+			long position = 0;
+			while (position < size) {
+				position += in.transferTo(position, size - position, out);
+			}
+		}
+		Files.setLastModifiedTime(dest, from.lastModifiedTime());
 	}
 }
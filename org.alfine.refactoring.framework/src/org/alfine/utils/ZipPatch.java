@@ -0,0 +1,307 @@
+package org.alfine.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/** Produce a copy of a zip archive where only some entries are replaced.
+ *
+ *  Unchanged entries (local header, compressed data and data descriptor) are
+ *  copied verbatim with `FileChannel.transferTo', i.e., without inflating
+ *  and deflating, so the cost is proportional to the size of the changes.
+ *  Replaced and added entries are compressed with the current `PUP'
+ *  compression level.
+ *
+ *  Only plain single-disk archives are supported; `patch' returns false
+ *  for archives that are (or would become) zip64, in which case the output
+ *  is incomplete and the caller should pack the archive from scratch. */
+public class ZipPatch {
+
+	private static final int LOC_SIG  = 0x04034b50;
+	private static final int CEN_SIG  = 0x02014b50;
+	private static final int END_SIG  = 0x06054b50;
+	private static final int DESC_SIG = 0x08074b50;
+	private static final int Z64_SIG  = 0x07064b50; /* Zip64 end of central directory locator. */
+
+	private static final int LOC_LEN = 30;
+	private static final int CEN_LEN = 46;
+	private static final int END_LEN = 22;
+
+	private static final int FLAG_DESCRIPTOR = 0x0008;
+	private static final int FLAG_UTF8       = 0x0800;
+
+	private ZipPatch() {} // Static class.
+
+	/** Central directory record of an entry in the original archive. */
+	private static class Entry {
+		private final byte[] record; /* Central directory record (incl. name, extra, comment). */
+		private final String name;
+		private final long   offset; /* Local header offset. */
+		private final long   csize;
+		private final int    flags;
+
+		private Entry(byte[] record, String name, long offset, long csize, int flags) {
+			this.record = record;
+			this.name   = name;
+			this.offset = offset;
+			this.csize  = csize;
+			this.flags  = flags;
+		}
+	}
+
+	/** Copy `archive' to `output', replacing entries in `changes'.
+	 *
+	 *  `changes' maps entry names to files with new content; entries whose
+	 *  file does not exist are removed, and names not present in the archive
+	 *  are added. Return false if the archive format is not supported. */
+	public static boolean patch(Path archive, Path output, Map<String, Path> changes) throws IOException {
+		try (FileChannel in = FileChannel.open(archive, StandardOpenOption.READ)) {
+
+			Map<String, Entry> entries = readCentralDirectory(in);
+			if (entries == null) {
+				return false;
+			}
+
+			try (FileChannel out = FileChannel.open(
+					output,
+					StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+
+				ByteArrayOutputStream central = new ByteArrayOutputStream();
+				int                   count   = 0;
+
+				for (Entry entry : entries.values()) {
+					if (changes.containsKey(entry.name)) {
+						continue;
+					}
+					long offset = out.position();
+					copyLocal(in, out, entry);
+					byte[] record = entry.record.clone();
+					ByteBuffer.wrap(record).order(ByteOrder.LITTLE_ENDIAN).putInt(42, (int)offset);
+					central.write(record);
+					++count;
+				}
+
+				for (Map.Entry<String, Path> change : changes.entrySet()) {
+					if (Files.exists(change.getValue())) {
+						central.write(writeEntry(out, change.getKey(), change.getValue()));
+						++count;
+					}
+				}
+
+				if (count > 0xffff || out.position() > 0xffffffffL) {
+					return false; // Would require zip64.
+				}
+
+				long   cenOffset = out.position();
+				byte[] cen       = central.toByteArray();
+				writeFully(out, ByteBuffer.wrap(cen));
+
+				ByteBuffer end = ByteBuffer.allocate(END_LEN).order(ByteOrder.LITTLE_ENDIAN);
+				end.putInt(END_SIG);
+				end.putShort((short)0);
+				end.putShort((short)0);
+				end.putShort((short)count);
+				end.putShort((short)count);
+				end.putInt(cen.length);
+				end.putInt((int)cenOffset);
+				end.putShort((short)0);
+				end.flip();
+				writeFully(out, end);
+			}
+		}
+		return true;
+	}
+
+	/** Return entries of the central directory (in archive order), or null if not supported. */
+	private static Map<String, Entry> readCentralDirectory(FileChannel in) throws IOException {
+		long size = in.size();
+		if (size < END_LEN) {
+			return null;
+		}
+
+		// The end record is followed by a comment of at most 64k.
+		int        tail = (int)Math.min(size, END_LEN + 0xffff);
+		ByteBuffer buf  = readAt(in, size - tail, tail);
+		int        end  = -1;
+		for (int i = tail - END_LEN; i >= 0; --i) {
+			if (buf.getInt(i) == END_SIG) {
+				end = i;
+				break;
+			}
+		}
+		if (end < 0) {
+			return null;
+		}
+		if (end >= 20 && buf.getInt(end - 20) == Z64_SIG) {
+			return null;
+		}
+
+		int  disk      = buf.getShort(end + 4) & 0xffff;
+		int  total     = buf.getShort(end + 10) & 0xffff;
+		long cenSize   = buf.getInt(end + 12) & 0xffffffffL;
+		long cenOffset = buf.getInt(end + 16) & 0xffffffffL;
+		if (disk != 0 || total == 0xffff || cenSize == 0xffffffffL || cenOffset == 0xffffffffL) {
+			return null;
+		}
+
+		ByteBuffer         cen     = readAt(in, cenOffset, (int)cenSize);
+		Map<String, Entry> entries = new LinkedHashMap<>();
+		int                pos     = 0;
+		for (int i = 0; i < total; ++i) {
+			if (cen.getInt(pos) != CEN_SIG) {
+				return null;
+			}
+			int  flags   = cen.getShort(pos + 8) & 0xffff;
+			long csize   = cen.getInt(pos + 20) & 0xffffffffL;
+			long usize   = cen.getInt(pos + 24) & 0xffffffffL;
+			int  nameLen = cen.getShort(pos + 28) & 0xffff;
+			int  extra   = cen.getShort(pos + 30) & 0xffff;
+			int  comment = cen.getShort(pos + 32) & 0xffff;
+			long offset  = cen.getInt(pos + 42) & 0xffffffffL;
+			if (csize == 0xffffffffL || usize == 0xffffffffL || offset == 0xffffffffL) {
+				return null;
+			}
+			int    length = CEN_LEN + nameLen + extra + comment;
+			byte[] record = new byte[length];
+			cen.get(pos, record);
+			String name = new String(record, CEN_LEN, nameLen, StandardCharsets.UTF_8);
+			entries.put(name, new Entry(record, name, offset, csize, flags));
+			pos += length;
+		}
+		return entries;
+	}
+
+	/** Copy local header, data and (optional) data descriptor of `entry'. */
+	private static void copyLocal(FileChannel in, FileChannel out, Entry entry) throws IOException {
+		ByteBuffer loc = readAt(in, entry.offset, LOC_LEN);
+		if (loc.getInt(0) != LOC_SIG) {
+			throw new IOException("Invalid local header: " + entry.name);
+		}
+		int  nameLen = loc.getShort(26) & 0xffff;
+		int  extra   = loc.getShort(28) & 0xffff;
+		long length  = LOC_LEN + nameLen + extra + entry.csize;
+
+		if ((entry.flags & FLAG_DESCRIPTOR) != 0) {
+			// Descriptor: [signature] crc, csize, usize.
+			ByteBuffer desc = readAt(in, entry.offset + length, 4);
+			length += desc.getInt(0) == DESC_SIG ? 16 : 12;
+		}
+
+		long position = entry.offset;
+		long end      = entry.offset + length;
+		while (position < end) {
+			position += in.transferTo(position, end - position, out);
+		}
+	}
+
+	/** Write local header and data for `file' as `name'. Return its central directory record (offset included). */
+	private static byte[] writeEntry(FileChannel out, String name, Path file) throws IOException {
+		byte[] content = Files.readAllBytes(file);
+		CRC32  crc     = new CRC32();
+		crc.update(content);
+
+		int    level  = PUP.getCompressionLevel();
+		int    method = level == PUP.STORED ? 0 : 8;
+		byte[] data   = method == 0 ? content : deflate(content, level);
+		byte[] bytes  = name.getBytes(StandardCharsets.UTF_8);
+		int    time   = dosTime(Files.getLastModifiedTime(file).toMillis());
+		long   offset = out.position();
+
+		ByteBuffer loc = ByteBuffer.allocate(LOC_LEN + bytes.length).order(ByteOrder.LITTLE_ENDIAN);
+		loc.putInt(LOC_SIG);
+		loc.putShort((short)20);
+		loc.putShort((short)FLAG_UTF8);
+		loc.putShort((short)method);
+		loc.putInt(time);
+		loc.putInt((int)crc.getValue());
+		loc.putInt(data.length);
+		loc.putInt(content.length);
+		loc.putShort((short)bytes.length);
+		loc.putShort((short)0);
+		loc.put(bytes);
+		loc.flip();
+		writeFully(out, loc);
+		writeFully(out, ByteBuffer.wrap(data));
+
+		ByteBuffer cen = ByteBuffer.allocate(CEN_LEN + bytes.length).order(ByteOrder.LITTLE_ENDIAN);
+		cen.putInt(CEN_SIG);
+		cen.putShort((short)20);
+		cen.putShort((short)20);
+		cen.putShort((short)FLAG_UTF8);
+		cen.putShort((short)method);
+		cen.putInt(time);
+		cen.putInt((int)crc.getValue());
+		cen.putInt(data.length);
+		cen.putInt(content.length);
+		cen.putShort((short)bytes.length);
+		cen.putShort((short)0);
+		cen.putShort((short)0);
+		cen.putShort((short)0);
+		cen.putShort((short)0);
+		cen.putInt(0);
+		cen.putInt((int)offset);
+		cen.put(bytes);
+		return cen.array();
+	}
+
+	private static byte[] deflate(byte[] content, int level) {
+		Deflater deflater = new Deflater(level, true); // Raw deflate (no zlib wrapper) as in zip files.
+		try {
+			deflater.setInput(content);
+			deflater.finish();
+			ByteArrayOutputStream out    = new ByteArrayOutputStream(content.length / 2 + 64);
+			byte[]                buffer = new byte[8192];
+			while (!deflater.finished()) {
+				out.write(buffer, 0, deflater.deflate(buffer));
+			}
+			return out.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	/** Return MS-DOS date and time (date in the high 16 bits). */
+	private static int dosTime(long millis) {
+		LocalDateTime t = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+		if (t.getYear() < 1980) {
+			return (1 << 21) | (1 << 16);
+		}
+		return ((t.getYear() - 1980) << 25)
+			| (t.getMonthValue() << 21)
+			| (t.getDayOfMonth() << 16)
+			| (t.getHour() << 11)
+			| (t.getMinute() << 5)
+			| (t.getSecond() >> 1);
+	}
+
+	private static ByteBuffer readAt(FileChannel in, long position, int length) throws IOException {
+		ByteBuffer buf = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+		while (buf.hasRemaining()) {
+			if (in.read(buf, position + buf.position()) < 0) {
+				throw new IOException("Unexpected end of archive.");
+			}
+		}
+		return buf.flip();
+	}
+
+	private static void writeFully(FileChannel out, ByteBuffer buf) throws IOException {
+		while (buf.hasRemaining()) {
+			out.write(buf);
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package org.alfine.refactoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.alfine.refactoring.suppliers.CacheWriter;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+
+public class CacheWriterTest {
+
+	@Test
+	public void test_lines_are_appended_in_order() throws Exception {
+		Path root = Files.createTempDirectory("cache-writer-test");
+		try {
+			Path a = root.resolve("a/descriptors.txt");
+			Path b = root.resolve("b/descriptors.txt");
+			Path c = root.resolve("c/descriptors.txt");
+
+			// At most one open channel and tiny buffers to exercise eviction and flushing.
+			try (CacheWriter writer = new CacheWriter(1, 8, 16)) {
+				for (int i = 0; i < 10; ++i) {
+					writer.write(a, "a" + i);
+					writer.write(b, "b" + i);
+					writer.write(c, "c" + i);
+				}
+			}
+			try (CacheWriter writer = new CacheWriter()) {
+				writer.write(a, "a10");
+			}
+
+			assertEquals(Arrays.asList("a0", "a1", "a2", "a3", "a4", "a5", "a6", "a7", "a8", "a9", "a10"), Files.readAllLines(a));
+			assertEquals(10, Files.readAllLines(b).size());
+			assertEquals("c9", Files.readAllLines(c).get(9));
+		} finally {
+			FileUtils.deleteDirectory(root.toFile());
+		}
+	}
+}
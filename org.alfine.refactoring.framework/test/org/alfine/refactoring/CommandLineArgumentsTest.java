@@ -25,4 +25,73 @@ class CommandLineArgumentsTest {
 		assertEquals("output", arguments.getOutputFolder());
 	}
 
+	@Test
+	void test_batch() {
+		String[] args = new String[] {
+				"--cache" , "oppcache",
+				"--lib"   , "assets/lib",
+				"--src"   , "assets/src",
+				"--out"   , "output",
+				"--batch" , "-"
+		};
+		CommandLineArguments arguments = new CommandLineArguments(args);
+
+		assertEquals("-", arguments.getBatchFile());
+		assertNull(new CommandLineArguments(new String[] {
+				"--cache" , "oppcache",
+				"--lib"   , "assets/lib",
+				"--src"   , "assets/src",
+				"--out"   , "output"
+		}).getBatchFile());
+	}
+
+	@Test
+	void test_incremental() {
+		String[] args = new String[] {
+				"--cache"      , "oppcache",
+				"--lib"        , "assets/lib",
+				"--src"        , "assets/src",
+				"--out"        , "output",
+				"--prepare",
+				"--incremental", "units"
+		};
+		CommandLineArguments arguments = new CommandLineArguments(args);
+
+		assertTrue(arguments.getPrepare());
+		assertEquals("units", arguments.getIncrementalFolder());
+	}
+
+	@Test
+	void test_top_k() {
+		String[] args = new String[] {
+				"--cache"      , "oppcache",
+				"--lib"        , "assets/lib",
+				"--src"        , "assets/src",
+				"--out"        , "output",
+				"--prepare",
+				"--top-k"      , "20"
+		};
+		CommandLineArguments arguments = new CommandLineArguments(args);
+
+		assertEquals(20, arguments.getTopK());
+	}
+
+	@Test
+	void test_extract_ranges() {
+		String[] args = new String[] {
+				"--cache"             , "oppcache",
+				"--lib"               , "assets/lib",
+				"--src"               , "assets/src",
+				"--out"               , "output",
+				"--prepare",
+				"--extract-max-length", "8",
+				"--extract-ranges"    , "aligned,loops"
+		};
+		CommandLineArguments arguments = new CommandLineArguments(args);
+
+		assertEquals(8, arguments.getExtractMaxLength());
+		assertEquals(1, arguments.getExtractStride());
+		assertEquals("aligned,loops", arguments.getExtractRanges());
+	}
+
 }
@@ -0,0 +1,87 @@
+package org.alfine.refactoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.alfine.refactoring.suppliers.DeclarationContext;
+import org.alfine.refactoring.utils.ASTHelper;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+import org.junit.jupiter.api.Test;
+
+public class DeclarationContextTest {
+
+	private static final String SOURCE = String.join("\n",
+		"package p.q;",
+		"import java.util.List;",
+		"public class A<T> {",
+		"	int f = 1;",
+		"	void m(int x, List<String> xs) { int y = x + 1; }",
+		"	void h() {",
+		"		class L { void n(T t) { String s = \"s\"; } }",
+		"		new Runnable() { public void run() { h(); } };",
+		"	}",
+		"	static class B { B() { this(1); } B(int i) {} }",
+		"}");
+
+	private static CompilationUnit parse(String source) {
+		ASTParser parser = ASTParser.newParser(AST.JLS8);
+		Map<String, String> options = JavaCore.getOptions();
+		JavaCore.setComplianceOptions(JavaCore.VERSION_1_8, options);
+		parser.setCompilerOptions(options);
+		parser.setKind(ASTParser.K_COMPILATION_UNIT);
+		parser.setSource(source.toCharArray());
+		return (CompilationUnit)parser.createAST(null);
+	}
+
+	@Test
+	public void test_signature_params() {
+		CompilationUnit   cu     = parse("class A { void m(final int x, @Deprecated String s, int a[], Object... os) {} }");
+		MethodDeclaration method = ((TypeDeclaration)cu.types().get(0)).getMethods()[0];
+		// Hashed into context paths (unchanged, to keep existing cache folders).
+		assertEquals("(final int, @Deprecated String, int, Object...)", ASTHelper.getMethodSignatureParams(method));
+		assertEquals("(int, String, int[], Object...)", ASTHelper.getNormalizedMethodSignatureParams(method));
+	}
+
+	@Test
+	public void test_matches_ast_helper() {
+		CompilationUnit cu = parse(SOURCE);
+
+		int[] count = { 0 };
+		cu.accept(new ASTVisitor() {
+			private DeclarationContext context;
+
+			@Override
+			public void preVisit(ASTNode node) {
+				if (node instanceof CompilationUnit unit) {
+					this.context = DeclarationContext.of(unit);
+				} else if (DeclarationContext.isDeclaration(node)) {
+					this.context = this.context.enter(node);
+				}
+				assertEquals(String.join("/", ASTHelper.getDeclarationContext(node)), this.context.getPath());
+				assertEquals(ASTHelper.getFullyQualifiedName(node), this.context.getQualifiedName());
+				assertEquals(DeclarationContext.of(node).getPath(), this.context.getPath());
+				if (node instanceof MethodDeclaration method) {
+					assertEquals(ASTHelper.getMethodSignature(method), this.context.getSignature());
+				}
+				count[0]++;
+			}
+
+			@Override
+			public void postVisit(ASTNode node) {
+				if (DeclarationContext.isDeclaration(node)) {
+					this.context = this.context.getParent();
+				}
+			}
+		});
+		assertTrue(count[0] > 50);
+	}
+}
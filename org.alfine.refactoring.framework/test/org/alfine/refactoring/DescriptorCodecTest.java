@@ -0,0 +1,50 @@
+package org.alfine.refactoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.alfine.refactoring.suppliers.DescriptorCodec;
+import org.junit.jupiter.api.Test;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObjectBuilder;
+
+public class DescriptorCodecTest {
+
+	private static String encodeWithJakarta(Map<String, String> args, Map<String, String> meta) {
+		JsonObjectBuilder a = Json.createObjectBuilder();
+		args.forEach(a::add);
+		JsonObjectBuilder m = Json.createObjectBuilder();
+		meta.forEach(m::add);
+		return Json.createObjectBuilder().add("args", a).add("meta", m).build().toString();
+	}
+
+	@Test
+	public void test_encoding_matches_jakarta() {
+		Map<String, String> args = new TreeMap<>();
+		Map<String, String> meta = new TreeMap<>();
+		args.put("input", "=project/src<p{A.java[A~m~QString;");
+		args.put("quote\"", "back\\slash/\n\t\b\f\r\u0001\u001f\u007fé€");
+		meta.put("id", "org.eclipse.jdt.ui.rename.method");
+
+		String line = DescriptorCodec.encode(args, meta);
+		assertEquals(encodeWithJakarta(args, meta), line);
+
+		Map<String, String> args2 = new TreeMap<>();
+		Map<String, String> meta2 = new TreeMap<>();
+		DescriptorCodec.decode(line, args2, meta2);
+		assertEquals(args, args2);
+		assertEquals(meta, meta2);
+	}
+
+	@Test
+	public void test_decoding_tolerates_whitespace_and_member_order() {
+		Map<String, String> args = new TreeMap<>();
+		Map<String, String> meta = new TreeMap<>();
+		DescriptorCodec.decode(" { \"meta\" : { \"id\" : \"x\\u0041\\/\" } , \"args\" : { } } ", args, meta);
+		assertEquals(0, args.size());
+		assertEquals("xA/", meta.get("id"));
+	}
+}
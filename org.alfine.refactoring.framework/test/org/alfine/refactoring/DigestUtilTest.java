@@ -0,0 +1,27 @@
+package org.alfine.refactoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.alfine.utils.DigestUtil;
+import org.junit.jupiter.api.Test;
+
+public class DigestUtilTest {
+
+	@Test
+	public void test_md5_compatible() {
+		// Upper case hex, as written by `DatatypeConverter.printHexBinary'.
+		assertEquals("D41D8CD98F00B204E9800998ECF8427E", DigestUtil.md5(""));
+		assertEquals("C73AC9A1D7A253CB2482B46A2CC286F3", DigestUtil.md5("(int, List<String>)"));
+		assertEquals(DigestUtil.md5("(int)"), DigestUtil.contextHash("(int)"));
+	}
+
+	@Test
+	public void test_murmur3() {
+		try {
+			DigestUtil.setContextHash(DigestUtil.MURMUR3);
+			assertEquals("23E00F52985A530C8C50065FADD330AB", DigestUtil.contextHash("(int, List<String>)"));
+		} finally {
+			DigestUtil.setContextHash(DigestUtil.MD5);
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package org.alfine.refactoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.alfine.refactoring.suppliers.ExtractMethodEnumerator;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.Block;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.EnhancedForStatement;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.ReturnStatement;
+import org.eclipse.jdt.core.dom.SwitchExpression;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+import org.junit.jupiter.api.Test;
+
+public class ExtractMethodEnumeratorTest {
+
+	private static final String SOURCE = String.join("\n",
+		"class A {",
+		"	int m(int[] a, int x) {",
+		"		int s = 0;",
+		"		for (int v : a) {",
+		"			if (v < 0) break;",
+		"			s += v;",
+		"		}",
+		"		s++;",
+		"		if (x > 0) return s;",
+		"		s--;",
+		"		return s;",
+		"	}",
+		"}");
+
+	private static final String SWITCH_SOURCE = String.join("\n",
+		"class B {",
+		"	int m(int k) {",
+		"		return switch (k) {",
+		"			case 1 -> {",
+		"				int s = k;",
+		"				s += switch (s) { case 0 -> 1; default -> { yield s; } };",
+		"				yield s;",
+		"			}",
+		"			default -> 0;",
+		"		};",
+		"	}",
+		"}");
+
+	private static Block getBody() {
+		return getBody(SOURCE, AST.JLS8, JavaCore.VERSION_1_8);
+	}
+
+	private static Block getBody(String source, int level, String version) {
+		ASTParser parser = ASTParser.newParser(level);
+		Map<String, String> options = JavaCore.getOptions();
+		JavaCore.setComplianceOptions(version, options);
+		parser.setCompilerOptions(options);
+		parser.setKind(ASTParser.K_COMPILATION_UNIT);
+		parser.setSource(source.toCharArray());
+		CompilationUnit   cu     = (CompilationUnit)parser.createAST(null);
+		MethodDeclaration method = ((TypeDeclaration)cu.types().get(0)).getMethods()[0];
+		return method.getBody();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<String> enumerate(ExtractMethodEnumerator enumerator, Block block) {
+		List<String> ranges = new ArrayList<>();
+		enumerator.enumerate(block.statements(), (start, end) -> ranges.add(start + "-" + end));
+		return ranges;
+	}
+
+	@Test
+	public void test_legal_ranges() {
+		Block body = getBody();
+
+		// Ranges with `return' must end with a statement that always returns.
+		assertEquals(
+			List.of("0-0", "0-1", "0-2", "0-5", "1-1", "1-2", "1-5", "2-2", "2-5", "3-5", "4-4", "4-5", "5-5"),
+			enumerate(new ExtractMethodEnumerator(), body));
+
+		// The `break' leaves the loop body.
+		Block loop = (Block)((EnhancedForStatement)body.statements().get(1)).getBody();
+		assertEquals(List.of("1-1"), enumerate(new ExtractMethodEnumerator(), loop));
+	}
+
+	@Test
+	public void test_yield() {
+		Block            body       = getBody(SWITCH_SOURCE, AST.getJLSLatest(), JavaCore.latestSupportedJavaVersion());
+		SwitchExpression expression = (SwitchExpression)((ReturnStatement)body.statements().get(0)).getExpression();
+		Block            arm        = (Block)expression.statements().get(1);
+
+		// The `yield' of the nested switch expression stays within its statement; the last one leaves the arm.
+		assertEquals(List.of("0-0", "0-1", "1-1"), enumerate(new ExtractMethodEnumerator(), arm));
+	}
+
+	@Test
+	public void test_strategies() {
+		Block body = getBody();
+
+		assertEquals(
+			List.of("0-0", "0-1", "1-1", "1-2", "2-2", "4-4", "4-5", "5-5"),
+			enumerate(new ExtractMethodEnumerator(2, 1, "all"), body));
+		assertEquals(
+			List.of("0-0", "0-1", "0-2", "0-5", "2-2", "2-5", "4-4", "4-5"),
+			enumerate(new ExtractMethodEnumerator(0, 2, "all"), body));
+		assertEquals(
+			List.of("0-0", "0-1", "0-2", "0-5", "1-1", "1-2", "1-5", "2-2", "2-5", "3-5", "4-5"),
+			enumerate(new ExtractMethodEnumerator(0, 1, "aligned"), body));
+		assertEquals(
+			List.of("0-1", "0-2", "0-5", "1-1", "1-2", "1-5"),
+			enumerate(new ExtractMethodEnumerator(0, 1, "loops"), body));
+	}
+}
@@ -0,0 +1,33 @@
+package org.alfine.refactoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.alfine.utils.FingerprintSet;
+import org.junit.jupiter.api.Test;
+
+public class FingerprintSetTest {
+
+	@Test
+	public void test_add_and_contains() {
+		FingerprintSet set = new FingerprintSet(4); // Small initial capacity to force growth.
+		for (int i = 0; i < 10000; ++i) {
+			assertTrue(set.add("{\"args\":{\"selection\":\"" + i + " 1\"},\"meta\":{\"id\":\"x\"}}"));
+		}
+		for (int i = 0; i < 10000; ++i) {
+			assertFalse(set.add("{\"args\":{\"selection\":\"" + i + " 1\"},\"meta\":{\"id\":\"x\"}}"));
+		}
+		assertEquals(10000, set.size());
+		assertTrue(set.contains("{\"args\":{\"selection\":\"42 1\"},\"meta\":{\"id\":\"x\"}}"));
+		assertFalse(set.contains("{\"args\":{},\"meta\":{}}"));
+	}
+
+	@Test
+	public void test_zero_fingerprint() {
+		FingerprintSet set = new FingerprintSet();
+		assertTrue(set.add(0, 0));
+		assertFalse(set.add(0, 0));
+		assertTrue(set.contains(0, 0));
+	}
+}
@@ -0,0 +1,136 @@
+package org.alfine.refactoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.alfine.refactoring.suppliers.MethodSet;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+import org.junit.jupiter.api.Test;
+
+public class MethodSetTest {
+
+	private static final String SOURCE = String.join("\n",
+		"package p.q;",
+		"import java.util.List;",
+		"public class A<T> {",
+		"	void m(int x) {}",
+		"	void m(String x) {}",
+		"	void g(final List<String> xs, T t, int[] a, Object... rest) {}",
+		"	void h() {",
+		"		class L { void n() {} }",
+		"		new Runnable() { public void run() {} };",
+		"	}",
+		"	static class B { void b() {} }",
+		"	static class C { void c() {} }",
+		"	void k(long[] a, boolean b) {}",
+		"	void k(long a) {}",
+		"	void v(String s, java.util.Map.Entry<String, String> e) {}",
+		"}");
+
+	private static CompilationUnit parse(String source) {
+		return parse(source, true);
+	}
+
+	private static CompilationUnit parse(String source, boolean resolve) {
+		ASTParser parser = ASTParser.newParser(AST.JLS8);
+		Map<String, String> options = JavaCore.getOptions();
+		JavaCore.setComplianceOptions(JavaCore.VERSION_1_8, options);
+		parser.setCompilerOptions(options);
+		parser.setKind(ASTParser.K_COMPILATION_UNIT);
+		parser.setResolveBindings(resolve);
+		parser.setEnvironment(new String[0], new String[0], null, true);
+		parser.setUnitName("/test/src/p/q/A.java");
+		parser.setSource(source.toCharArray());
+		return (CompilationUnit)parser.createAST(null);
+	}
+
+	@Test
+	public void test_binding_lookup() throws Exception {
+		Path file = Files.createTempFile("methods", ".config");
+		try {
+			Files.write(file, List.of(
+				"p.q.A.m(String)",
+				"p.q.A.g(List<String>, T, int[], Object...)",
+				"p.q.A.h.L.n()",
+				"p.q.A.h.run()",
+				"p.q.A.B.b()",
+				"p/q/A.k([JZ)V",
+				"p.q.A.v(java.lang.String, java.util.Map$Entry)"
+			));
+			MethodSet methods = new MethodSet(file);
+
+			List<String> hot   = new ArrayList<>();
+			List<String> types = new ArrayList<>();
+			parse(SOURCE).accept(new ASTVisitor() {
+				@Override
+				public boolean visit(MethodDeclaration node) {
+					if (methods.hasMethod(node)) {
+						hot.add(node.getName() + "/" + node.parameters().size());
+					}
+					return true;
+				}
+
+				@Override
+				public boolean visit(TypeDeclaration node) {
+					if (methods.hasMethods(node.resolveBinding())) {
+						types.add(node.getName().getIdentifier());
+					}
+					return true;
+				}
+			});
+
+			assertEquals(List.of("m/1", "g/4", "n/0", "run/0", "b/0", "k/2", "v/2"), hot);
+			assertEquals(List.of("A", "L", "B"), types);
+
+			assertTrue(methods.hasMethods("p"));
+			assertTrue(methods.hasMethods("p.q.A.B"));
+			assertFalse(methods.hasMethods("p.q.A.C"));
+			assertFalse(methods.hasMethods("p.r"));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void test_unresolved_lookup() throws Exception {
+		Path file = Files.createTempFile("methods", ".config");
+		try {
+			Files.write(file, List.of(
+				"p.q.A.m(String)",
+				"p.q.A.g(final List<String>,T,int [], Object ...)",
+				"p.q.A.h.run()",
+				"p/q/A$B.b",
+				"p/q/A.k([JZ)V"
+			));
+			MethodSet methods = new MethodSet(file);
+
+			List<String> hot = new ArrayList<>();
+			parse(SOURCE, false).accept(new ASTVisitor() {
+				@Override
+				public boolean visit(MethodDeclaration node) {
+					if (methods.hasMethod(node)) {
+						hot.add(node.getName() + "/" + node.parameters().size());
+					}
+					return true;
+				}
+			});
+
+			assertEquals(List.of("m/1", "g/4", "run/0", "b/0", "k/2"), hot);
+		} finally {
+			Files.delete(file);
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package org.alfine.refactoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.alfine.refactoring.suppliers.MethodSignature;
+import org.junit.jupiter.api.Test;
+
+public class MethodSignatureTest {
+
+	private static String normalize(String entry) {
+		return MethodSignature.parse(entry).toString();
+	}
+
+	@Test
+	public void test_source_style() {
+		assertEquals("p.q.A.B.m(int, List, Object[])", normalize("p.q.A.B.m(int, List<String>, Object...)"));
+		assertEquals("p.q.A.m(Map.Entry, int[][])", normalize("p.q.A.m(final Map.Entry<K, V> e, @Deprecated int x[][])"));
+		assertEquals("p.q.A.h.L.n()", normalize("p.q.A.h.L.n()"));
+	}
+
+	@Test
+	public void test_descriptor_style() {
+		assertEquals("p.q.A.B.m(int, java.util.List, java.lang.Object[])", normalize("p/q/A$B.m(ILjava/util/List;[Ljava/lang/Object;)V"));
+		assertEquals("p.q.A.m(long[], boolean)", normalize("p.q.A.m([JZ)"));
+		assertEquals("p.q.A.m()", normalize("p/q/A.m()V"));
+		assertEquals("p.q.A.run()", normalize("p/q/A$1.run()V"));
+	}
+
+	@Test
+	public void test_profiler_frames() {
+		assertEquals("p.q.A.B.m", normalize("p/q/A$B.m_[j]"));
+		assertEquals("p.q.A.m", normalize("p.q.A::m"));
+		assertTrue(MethodSignature.parse("p/q/A.m").isAnyOverload());
+		assertEquals("p.q.A.m(int, java.lang.String)", normalize("p.q.A.m(int, java.lang.String)"));
+	}
+
+	@Test
+	public void test_not_methods() {
+		assertNull(MethodSignature.parse(""));
+		assertNull(MethodSignature.parse("# comment"));
+		assertNull(MethodSignature.parse("main"));
+	}
+}
@@ -0,0 +1,91 @@
+package org.alfine.refactoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.alfine.refactoring.suppliers.ExtractMethodDescriptor;
+import org.alfine.refactoring.suppliers.MethodSet;
+import org.alfine.refactoring.suppliers.OpportunityBuffer;
+import org.alfine.refactoring.suppliers.OpportunityRanking;
+import org.alfine.refactoring.suppliers.RefactoringOpportunityContext;
+import org.junit.jupiter.api.Test;
+
+public class OpportunityBufferTest {
+
+	private static final RefactoringOpportunityContext CONTEXT = new RefactoringOpportunityContext() {
+		@Override
+		public Path getContextPath() {
+			return Paths.get("x-method");
+		}
+	};
+
+	private static ExtractMethodDescriptor descriptor(int start) {
+		return new ExtractMethodDescriptor(Map.of("selection", start + " 1"));
+	}
+
+	private static List<String> selections(OpportunityBuffer buffer) {
+		return buffer.getEntries().stream()
+			.map(e -> e.getDescriptor().getArg("selection"))
+			.collect(Collectors.toList());
+	}
+
+	@Test
+	public void test_top_k_per_group() {
+		OpportunityBuffer buffer = new OpportunityBuffer(2);
+		buffer.add(CONTEXT, descriptor(0), "A.m()", 1.0);
+		buffer.add(CONTEXT, descriptor(1), "A.m()", 3.0);
+		buffer.add(CONTEXT, descriptor(2), "A.n()", 1.0);
+		buffer.add(CONTEXT, descriptor(3), "A.m()", 2.0);
+		buffer.add(CONTEXT, descriptor(4), "A.m()", 2.0); // Tie with 3, which is earlier.
+		buffer.add(CONTEXT, descriptor(5));              // Not ranked.
+		buffer.add(CONTEXT, descriptor(1), "A.n()", 5.0);
+		buffer.add(CONTEXT, descriptor(1), "A.n()", 5.0); // Duplicate.
+
+		// Kept in visiting order.
+		assertEquals(List.of("1 1", "2 1", "3 1", "5 1", "1 1"), selections(buffer));
+		assertEquals(2, buffer.getDropped());
+	}
+
+	@Test
+	public void test_unbounded() {
+		OpportunityBuffer buffer = new OpportunityBuffer();
+		for (int i = 0; i < 5; ++i) {
+			buffer.add(CONTEXT, descriptor(i), "A.m()", i % 2);
+		}
+		assertEquals(5, buffer.size());
+		assertEquals(0, buffer.getDropped());
+	}
+
+	private static MethodSet.Weight weight(long self) {
+		MethodSet.Weight weight = new MethodSet.Weight();
+		weight.self  = self;
+		weight.total = self;
+		return weight;
+	}
+
+	@Test
+	public void test_top_k_by_weight() {
+		OpportunityBuffer buffer = new OpportunityBuffer(4);
+		int               hot    = OpportunityRanking.getTopK(4, weight(100), 100);
+		int               warm   = OpportunityRanking.getTopK(4, weight(30), 100);
+		assertEquals(4, hot);
+		assertEquals(2, warm);
+		assertEquals(1, OpportunityRanking.getTopK(4, weight(0), 100));
+		assertEquals(4, OpportunityRanking.getTopK(4, null, 100)); // Unweighted.
+
+		for (int i = 0; i < 6; ++i) {
+			buffer.add(CONTEXT, descriptor(i), "A.hot()", i, hot);
+			buffer.add(CONTEXT, descriptor(10 + i), "A.warm()", i, warm);
+		}
+		List<String> kept = selections(buffer);
+		assertEquals(4, kept.stream().filter(s -> s.length() == 3).count());  // A.hot()
+		assertEquals(2, kept.stream().filter(s -> s.length() == 4).count());  // A.warm()
+		assertEquals(List.of("2 1", "3 1", "4 1", "14 1", "5 1", "15 1"), kept);
+		assertEquals(6, buffer.getDropped());
+	}
+}
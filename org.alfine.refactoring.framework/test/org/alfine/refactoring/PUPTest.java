@@ -0,0 +1,86 @@
+package org.alfine.refactoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.jar.JarFile;
+
+import org.alfine.utils.PUP;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+
+public class PUPTest {
+
+	private static void roundTrip(int level) throws Exception {
+		Path root = Files.createTempDirectory("pup-test");
+		int  old  = PUP.getCompressionLevel();
+		try {
+			Path src = root.resolve("src");
+			Files.createDirectories(src.resolve("a/b"));
+			Files.createDirectories(src.resolve("inner.jar.dir/x"));
+			Files.createFile(src.resolve(".jar"));
+			Files.createFile(src.resolve("inner.jar.dir/.jar"));
+			Files.writeString(src.resolve("a/b/A.java"), "class A {}");
+			Files.writeString(src.resolve("inner.jar.dir/x/B.java"), "class B {}");
+
+			PUP.setCompressionLevel(level);
+			PUP.jar(src, root.resolve("out.jar"));
+
+			Path out = root.resolve("out");
+			try (JarFile jf = new JarFile(root.resolve("out.jar").toFile())) {
+				PUP.unjar(jf, out);
+			}
+
+			assertEquals("class A {}", Files.readString(out.resolve("a/b/A.java")));
+			assertEquals("class B {}", Files.readString(out.resolve("inner.jar.dir/x/B.java")));
+			assertFalse(Files.exists(out.resolve("inner.jar")));
+		} finally {
+			PUP.setCompressionLevel(old);
+			FileUtils.deleteDirectory(root.toFile());
+		}
+	}
+
+	@Test
+	public void test_round_trip_stored() throws Exception {
+		roundTrip(PUP.STORED);
+	}
+
+	@Test
+	public void test_round_trip_deflated() throws Exception {
+		roundTrip(-1);
+	}
+
+	@Test
+	public void test_tree_copy_skips_unchanged_files() throws Exception {
+		Path root = Files.createTempDirectory("pup-test");
+		try {
+			Path src  = root.resolve("src");
+			Path dest = root.resolve("dest");
+			Files.createDirectories(src.resolve("a/b"));
+			Files.createDirectories(src.resolve("c"));
+			Files.writeString(src.resolve("a/b/A.java"), "class A {}");
+			Files.writeString(src.resolve("c/C.java"), "class C {}");
+
+			PUP.treeCopy(src, dest);
+			assertEquals("class A {}", Files.readString(dest.resolve("a/b/A.java")));
+			assertEquals("class C {}", Files.readString(dest.resolve("c/C.java")));
+
+			// Same size and time: not copied again.
+			Files.writeString(dest.resolve("c/C.java"), "class X {}");
+			Files.setLastModifiedTime(dest.resolve("c/C.java"), Files.getLastModifiedTime(src.resolve("c/C.java")));
+			Files.writeString(src.resolve("a/b/A.java"), "class A { int x; }");
+			Files.setLastModifiedTime(src.resolve("a/b/A.java"), FileTime.fromMillis(0));
+
+			PUP.treeCopy(src, dest, true);
+			assertEquals("class A { int x; }", Files.readString(dest.resolve("a/b/A.java")));
+			assertEquals("class X {}", Files.readString(dest.resolve("c/C.java")));
+			assertTrue(Files.isSameFile(src.resolve("a/b/A.java"), dest.resolve("a/b/A.java")));
+		} finally {
+			FileUtils.deleteDirectory(root.toFile());
+		}
+	}
+}
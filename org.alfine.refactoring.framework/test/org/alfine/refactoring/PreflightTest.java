@@ -0,0 +1,31 @@
+package org.alfine.refactoring;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.alfine.refactoring.processors.Preflight;
+import org.junit.jupiter.api.Test;
+
+public class PreflightTest {
+
+	@Test
+	public void test_selection() {
+		assertFalse(Preflight.checkSelection("59 1",  true,  100).hasError());
+		assertFalse(Preflight.checkSelection("59 0",  false, 100).hasError()); // E.g., inline temp at a position.
+		assertFalse(Preflight.checkSelection("59 41", true,  -1).hasError());  // Source length not known.
+		assertTrue(Preflight.checkSelection("59 0",   true,  100).hasFatalError());
+		assertTrue(Preflight.checkSelection("59 42",  true,  100).hasFatalError());
+		assertTrue(Preflight.checkSelection("-1 1",   true,  100).hasFatalError());
+		assertTrue(Preflight.checkSelection("59",     true,  100).hasFatalError());
+		assertTrue(Preflight.checkSelection("59 x",   true,  100).hasFatalError());
+	}
+
+	@Test
+	public void test_name() {
+		assertFalse(Preflight.checkName("g", "f", null).hasError());
+		assertTrue(Preflight.checkName("f",     "f", null).hasFatalError());
+		assertTrue(Preflight.checkName(null,    "f", null).hasFatalError());
+		assertTrue(Preflight.checkName("1f",    "f", null).hasFatalError());
+		assertTrue(Preflight.checkName("class", "f", null).hasFatalError());
+	}
+}
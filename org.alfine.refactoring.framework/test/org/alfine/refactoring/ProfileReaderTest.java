@@ -0,0 +1,48 @@
+package org.alfine.refactoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.alfine.refactoring.suppliers.MethodSet;
+import org.alfine.refactoring.suppliers.MethodSignature;
+import org.alfine.refactoring.suppliers.ProfileReader;
+import org.junit.jupiter.api.Test;
+
+public class ProfileReaderTest {
+
+	@Test
+	public void test_collapsed_stacks() throws Exception {
+		Path file = Files.createTempFile("profile", ".collapsed");
+		try {
+			Files.write(file, List.of(
+				"java/lang/Thread.run_[j];p/A.main_[j];p/A.hot_[j] 70",
+				"java/lang/Thread.run_[j];p/A.main_[j];p/A.hot_[j];p/A.hot_[i];p/B.leaf_[i] 20",
+				"java/lang/Thread.run_[j];p/A.main_[j];__libc_write_[k] 10"
+			));
+			ProfileReader reader = new ProfileReader().read(file);
+			assertEquals(100, reader.getSamples());
+
+			Map<MethodSignature, MethodSet.Weight> hot = reader.getHotMethods(0.15);
+
+			List<String> names  = new ArrayList<>();
+			List<Long>   self   = new ArrayList<>();
+			List<Long>   total  = new ArrayList<>();
+			for (Map.Entry<MethodSignature, MethodSet.Weight> entry : hot.entrySet()) {
+				names.add(entry.getKey().toString());
+				self.add(entry.getValue().self);
+				total.add(entry.getValue().total);
+			}
+			// `main' is the leaf frame of the native sample, which is not a Java frame.
+			assertEquals(List.of("p.A.hot", "p.B.leaf"), names);
+			assertEquals(List.of(70L, 20L), self);
+			assertEquals(List.of(90L, 20L), total);
+		} finally {
+			Files.delete(file);
+		}
+	}
+}
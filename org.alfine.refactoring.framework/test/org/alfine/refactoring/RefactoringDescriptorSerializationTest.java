@@ -1,6 +1,12 @@
 package org.alfine.refactoring;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
 
 import org.alfine.refactoring.suppliers.ExtractConstantFieldDescriptor;
 import org.alfine.refactoring.suppliers.ExtractMethodDescriptor;
@@ -66,4 +72,25 @@ public class RefactoringDescriptorSerializationTest {
 	public void test_serialize_default_renam_type_parameter_descriptor() {
 		check_equal_after_serialization(new RenameTypeDescriptor());
 	}
+
+	@Test
+	public void test_frozen_and_unfrozen_descriptors_agree_on_equality_and_hash() {
+		RenameFieldDescriptor a = new RenameFieldDescriptor();
+		RenameFieldDescriptor b = new RenameFieldDescriptor();
+		a.putArg("input", "x");
+		b.putArg("input", "x");
+		b.freeze();
+
+		assertEquals(a, b);
+		assertEquals(a.hashCode(), b.hashCode());
+		assertEquals(0, a.compareTo(b));
+
+		Set<RefactoringDescriptor> set = new HashSet<>();
+		set.add(b);
+		assertTrue(set.contains(a));
+
+		a.putArg("input", "y");
+		assertNotEquals(a, b);
+		assertThrows(RuntimeException.class, () -> b.putArg("input", "y"));
+	}
 }
@@ -0,0 +1,44 @@
+package org.alfine.refactoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.alfine.refactoring.processors.RefactoringMetrics;
+import org.junit.jupiter.api.Test;
+
+import jakarta.json.JsonArray;
+import jakarta.json.JsonObject;
+
+public class RefactoringMetricsTest {
+
+	@Test
+	public void test_phases() {
+		RefactoringMetrics metrics = new RefactoringMetrics("org.eclipse.jdt.ui.extract.temp", "descriptor");
+		metrics.begin(RefactoringMetrics.PHASE_VALIDATE);
+		metrics.begin(RefactoringMetrics.PHASE_CONTEXT); // Ends `validate'.
+		long[] allocated = new long[1024];
+		metrics.setOutcome(RefactoringMetrics.OUTCOME_INVALID_CONTEXT);
+		metrics.end(); // No current phase.
+
+		JsonObject json   = metrics.toJson();
+		JsonArray  phases = json.getJsonArray("phases");
+		assertEquals(2, metrics.size());
+		assertEquals("org.eclipse.jdt.ui.extract.temp", json.getString("id"));
+		assertEquals(RefactoringMetrics.OUTCOME_INVALID_CONTEXT, json.getString("outcome"));
+		assertEquals(RefactoringMetrics.PHASE_VALIDATE, phases.getJsonObject(0).getString("phase"));
+		assertEquals(RefactoringMetrics.PHASE_CONTEXT,  phases.getJsonObject(1).getString("phase"));
+		assertEquals(
+			phases.getJsonObject(0).getJsonNumber("wall").longValue() + phases.getJsonObject(1).getJsonNumber("wall").longValue(),
+			json.getJsonNumber("wall").longValue()
+		);
+		long bytes = phases.getJsonObject(1).getJsonNumber("allocated").longValue();
+		assertTrue(bytes == -1 || bytes >= 8 * allocated.length);
+	}
+
+	@Test
+	public void test_default_outcome() {
+		RefactoringMetrics metrics = new RefactoringMetrics("id", "descriptor");
+		assertEquals(RefactoringMetrics.OUTCOME_ERROR, metrics.toJson().getString("outcome"));
+		assertEquals(0, metrics.toJson().getJsonArray("phases").size());
+	}
+}
@@ -18,6 +18,7 @@ import org.alfine.refactoring.framework.Workspace;
 import org.alfine.refactoring.framework.WorkspaceConfiguration;
 import org.alfine.refactoring.framework.launch.CommandLineArguments;
 import org.alfine.refactoring.framework.launch.Main;
+import org.alfine.refactoring.processors.ResultSink;
 import org.alfine.refactoring.suppliers.HotMethodRefactoringFinder;
 import org.alfine.refactoring.suppliers.RefactoringOpportunityContext;
 import org.apache.commons.io.FileUtils;
@@ -507,7 +508,7 @@ public class RegressionTests {
 	}
 
 	private void printRefactoringOutput() throws Exception {
-		System.err.println(String.join(System.getProperty("line.separator"), Files.lines(getLocation().resolve("report").resolve("refactoring-output.txt")).toList()));
+		System.err.println(String.join(System.getProperty("line.separator"), Files.lines(getLocation().resolve("report").resolve(ResultSink.RESULTS_FILE)).toList()));
 	}
 
 	@Test
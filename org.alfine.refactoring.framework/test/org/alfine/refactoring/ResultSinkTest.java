@@ -0,0 +1,75 @@
+package org.alfine.refactoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.alfine.refactoring.processors.RefactoringMetrics;
+import org.alfine.refactoring.processors.RefactoringResult;
+import org.alfine.refactoring.processors.ResultSink;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+
+public class ResultSinkTest {
+
+	@TempDir
+	Path folder;
+
+	private static JsonObject parse(String line) {
+		return Json.createReader(new StringReader(line)).readObject();
+	}
+
+	@Test
+	public void test_records() throws Exception {
+		Path report = folder.resolve("report");
+
+		RefactoringResult applied = new RefactoringResult("org.eclipse.jdt.ui.inline.temp", "{\"a\":1}");
+		applied.getMetrics().begin(RefactoringMetrics.PHASE_FINAL);
+		applied.addStatus(RefactoringMetrics.PHASE_FINAL, "WARNING", 7, "Warning");
+		applied.getMetrics().begin(RefactoringMetrics.PHASE_PERFORM);
+		applied.addChanged("/p/src/t/X.java");
+		applied.addChanged("/p/src/t/X.java");
+		applied.getMetrics().setOutcome(RefactoringMetrics.OUTCOME_APPLIED);
+		applied.setSuccess(true);
+
+		RefactoringResult rejected = new RefactoringResult("org.eclipse.jdt.ui.inline.temp", "{\"a\":2}");
+		rejected.getMetrics().setOutcome(RefactoringMetrics.OUTCOME_REJECTED_FINAL);
+
+		try (ResultSink sink = new ResultSink(report, 0)) {
+			sink.write(0, applied);
+			sink.write(1, rejected);
+			assertEquals(2, sink.size());
+		}
+		try (ResultSink sink = new ResultSink(report)) { // Appends.
+			sink.write(rejected);
+		}
+
+		List<String> lines = Files.readAllLines(report.resolve(ResultSink.RESULTS_FILE));
+		assertEquals(3, lines.size());
+
+		JsonObject first = parse(lines.get(0));
+		assertEquals(0, first.getInt("index"));
+		assertTrue(first.getBoolean("success"));
+		assertEquals(RefactoringMetrics.OUTCOME_APPLIED, first.getString("outcome"));
+		assertEquals("{\"a\":1}", first.getString("descriptor"));
+		assertEquals("WARNING", first.getJsonArray("status").getJsonObject(0).getString("severity"));
+		assertEquals(7, first.getJsonArray("status").getJsonObject(0).getInt("code"));
+		assertEquals(1, first.getJsonArray("changed").size());
+		assertEquals(2, first.getJsonArray("phases").size());
+
+		JsonObject second = parse(lines.get(1));
+		assertEquals(1, second.getInt("index"));
+		assertFalse(second.getBoolean("success"));
+		assertEquals(RefactoringMetrics.OUTCOME_REJECTED_FINAL, second.getString("outcome"));
+
+		assertFalse(parse(lines.get(2)).containsKey("index"));
+	}
+}
@@ -0,0 +1,58 @@
+package org.alfine.refactoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import org.alfine.refactoring.suppliers.RefactoringDescriptor;
+import org.alfine.refactoring.suppliers.RenameFieldDescriptor;
+import org.alfine.refactoring.suppliers.RenameMethodDescriptor;
+import org.alfine.refactoring.suppliers.SegmentCacheReader;
+import org.alfine.refactoring.suppliers.SegmentCacheWriter;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+
+public class SegmentCacheTest {
+
+	@Test
+	public void test_descriptors_are_read_back_by_group_and_index() throws Exception {
+		Path root = Files.createTempDirectory("segment-cache-test");
+		try {
+			Path a = Paths.get("p/a");
+			Path b = Paths.get("p/b");
+
+			RefactoringDescriptor[] fields  = new RefactoringDescriptor[300];
+			RefactoringDescriptor   method  = new RenameMethodDescriptor();
+
+			try (SegmentCacheWriter writer = new SegmentCacheWriter(root)) {
+				for (int i = 0; i < fields.length; ++i) {
+					fields[i] = new RenameFieldDescriptor();
+					fields[i].putArg("input", "field" + i);
+					writer.write(i % 2 == 0 ? a : b, fields[i]);
+				}
+				writer.write(a, method);
+			}
+
+			SegmentCacheReader reader = new SegmentCacheReader(root.resolve(SegmentCacheWriter.FILE));
+
+			String field = fields[0].getRefactoringID();
+
+			assertEquals(Arrays.asList(a, b), reader.getContextPaths());
+			assertEquals(150, reader.count(a, field));
+			assertEquals(150, reader.count(b, field));
+			assertEquals(1, reader.count(a, method.getRefactoringID()));
+			assertEquals(0, reader.count(b, method.getRefactoringID()));
+
+			assertEquals(fields[0], reader.get(a, field, 0));
+			assertEquals(fields[299], reader.get(b, field, 149));
+			assertEquals(fields[200].getCacheLine(), reader.get(a, field, 100).getCacheLine());
+			assertEquals(method, reader.get(a, method.getRefactoringID(), 0));
+			assertEquals(300, reader.getDescriptors(field).count());
+		} finally {
+			FileUtils.deleteDirectory(root.toFile());
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package org.alfine.refactoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.alfine.utils.ZipPatch;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+
+public class ZipPatchTest {
+
+	private static String read(ZipFile zip, String name) throws Exception {
+		return new String(zip.getInputStream(zip.getEntry(name)).readAllBytes());
+	}
+
+	@Test
+	public void test_only_changed_entries_are_replaced() throws Exception {
+		Path root = Files.createTempDirectory("zip-patch-test");
+		try {
+			Path archive = root.resolve("in.jar");
+			try (OutputStream os = Files.newOutputStream(archive); ZipOutputStream out = new ZipOutputStream(os)) {
+				for (String name : new String[] { "p/A.java", "p/B.java", "p/C.java" }) {
+					out.putNextEntry(new ZipEntry(name));
+					out.write(("class " + name.charAt(2) + " {}").getBytes());
+					out.closeEntry();
+				}
+			}
+
+			Path changed = Files.writeString(root.resolve("A.java"), "class A { int x; }");
+			Path added   = Files.writeString(root.resolve("D.java"), "class D {}");
+
+			Map<String, Path> changes = new TreeMap<>();
+			changes.put("p/A.java", changed);
+			changes.put("p/C.java", root.resolve("removed"));
+			changes.put("p/D.java", added);
+
+			Path output = root.resolve("out.jar");
+			assertTrue(ZipPatch.patch(archive, output, changes));
+
+			try (ZipFile zip = new ZipFile(output.toFile())) {
+				assertEquals(3, zip.size());
+				assertEquals("class A { int x; }", read(zip, "p/A.java"));
+				assertEquals("class B {}", read(zip, "p/B.java"));
+				assertEquals("class D {}", read(zip, "p/D.java"));
+				assertNull(zip.getEntry("p/C.java"));
+			}
+		} finally {
+			FileUtils.deleteDirectory(root.toFile());
+		}
+	}
+}